@@ -0,0 +1,51 @@
+package com.qa.opencart.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH main with the defaults we compare commits with: gc profiler (allocation
+ * per operation) and a json result per run in target/jmh/&lt;tag&gt;.json,
+ * tag from -Dbench.tag (e.g. the short commit id), "latest" by default.
+ *
+ * cd IT && java -Dbench.tag=$(git rev-parse --short HEAD) -jar ../benchmarks/target/benchmarks.jar [jmh options]
+ *
+ * Every jmh command line option still works and wins over the defaults,
+ * e.g. "ElementUtil" to run only those benchmarks.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cli = new CommandLineOptions(args);
+		File results = new File("target/jmh/" + System.getProperty("bench.tag", "latest") + ".json");
+		results.getParentFile().mkdirs();
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+		if (cli.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+		if (!cli.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!cli.getResult().hasValue()) {
+			options.result(results.getPath());
+		}
+		if (!cli.getForkCount().hasValue()) {
+			options.forks(1);
+		}
+		if (!cli.getWarmupIterations().hasValue()) {
+			options.warmupIterations(3);
+		}
+		if (!cli.getMeasurementIterations().hasValue()) {
+			options.measurementIterations(5);
+		}
+		new Runner(options.build()).run();
+	}
+
+}
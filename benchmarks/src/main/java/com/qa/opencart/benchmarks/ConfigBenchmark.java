@@ -0,0 +1,36 @@
+package com.qa.opencart.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.factory.DriverFactory;
+
+/**
+ * DriverFactory.initProp, called by every test class setup through BaseTest
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigBenchmark {
+
+	private final DriverFactory df = new DriverFactory();
+
+	@Benchmark
+	public Properties initProp() {
+		return df.initProp();
+	}
+
+	@Benchmark
+	public ConfigService withBrowser() {
+		return ConfigService.getInstance().withBrowser("firefox");
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.qa.opencart.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openqa.selenium.By;
+
+import com.qa.opencart.utils.ElementUtil;
+
+/**
+ * ElementUtil.getBy: locator type string to By, done for every string based
+ * locator call
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ElementUtilBenchmark {
+
+	@Param({ "id", "xpath", "linktext" })
+	private String locatorType;
+
+	private String locatorValue;
+	private ElementUtil eleUtil;
+
+	@Setup
+	public void setup() {
+		eleUtil = new ElementUtil(StubDriver.create());
+		switch (locatorType) {
+		case "xpath":
+			locatorValue = "(//div[@id='content']//ul[@class='list-unstyled'])[1]/li";
+			break;
+		case "linktext":
+			locatorValue = "Forgotten Password";
+			break;
+		default:
+			locatorValue = "input-email";
+		}
+	}
+
+	@Benchmark
+	public By getBy() {
+		return eleUtil.getBy(locatorType, locatorValue);
+	}
+
+}
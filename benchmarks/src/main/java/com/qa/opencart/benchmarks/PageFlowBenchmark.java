@@ -0,0 +1,91 @@
+package com.qa.opencart.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.pages.AccountsPage;
+import com.qa.opencart.pages.LoginPage;
+import com.qa.opencart.pages.ProductInfoPage;
+import com.qa.opencart.standin.StandInServer;
+
+/**
+ * End to end page object flows in headless chrome against the local OpenCart
+ * stand-in (local env), so the numbers are the framework's and the browser's
+ * time, not the network's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PageFlowBenchmark {
+
+	private StandInServer server;
+	private WebDriver driver;
+	private AccountsPage accPage;
+	private String loginUrl;
+	private String username;
+	private String password;
+
+	@Setup(Level.Trial)
+	public void startBrowser() throws IOException {
+		ConfigService config = ConfigService.forEnv("local").withBrowser("chrome");
+		server = StandInServer.forConfig(config);
+		server.start();
+		loginUrl = config.getUrl();
+		username = config.get("username");
+		password = config.get("password");
+		driver = new DriverFactory().initDriver(config);
+		accPage = new LoginPage(driver).doLogin(username, password);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopBrowser() {
+		DriverFactory.releaseDriver();
+		if (DriverFactory.getDriverPool() != null) {
+			DriverFactory.getDriverPool().shutdown();
+		}
+		server.stop();
+	}
+
+	@Benchmark
+	public AccountsPage loginFlow() {
+		driver.manage().deleteAllCookies();
+		driver.get(loginUrl);
+		LoginPage loginPage = new LoginPage(driver);
+		AccountsPage page = loginPage.doLogin(username, password);
+		page.getAccPageTitle();
+		return page;
+	}
+
+	@Benchmark
+	public List<String> accountHeaders() {
+		return accPage.getAccPageHeaders();
+	}
+
+	@Benchmark
+	public Map<String, String> searchAndProductDetails() {
+		ProductInfoPage productPage = accPage.doSearch("macbook").selectProduct("MacBook Pro");
+		return productPage.getProductDetailsMap();
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.qa.opencart.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openqa.selenium.By;
+
+import com.qa.opencart.utils.PageExtractor;
+
+/**
+ * the string parsing of ProductInfoPage (PageExtractor fields of the product
+ * page) on texts captured from the MacBook Pro page, no browser involved
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductParsingBenchmark {
+
+	// same fields and locators as ProductInfoPage
+	private final By productHeader = By.tagName("h1");
+	private final By productImages = By.cssSelector("ul.thumbnails img");
+	private final By productMetaData = By.xpath("(//div[@id='content']//ul[@class='list-unstyled'])[1]/li");
+	private final By productPriceData = By.xpath("(//div[@id='content']//ul[@class='list-unstyled'])[2]/li");
+
+	// visible texts per locator, as the extraction script returns them
+	private final List<List<String>> captured = List.of(
+			List.of("MacBook Pro"),
+			List.of("", "", "", ""),
+			List.of("Brand: Apple", "Product Code: Product 18", "Reward Points: 800", "Availability: Out Of Stock"),
+			List.of("$2,000.00", "Ex Tax: $2,000.00"));
+
+	private PageExtractor extractor;
+
+	@Setup
+	public void setup() {
+		extractor = new PageExtractor(StubDriver.create())
+				.text("productheader", productHeader)
+				.count("productimages", productImages)
+				.keyValues(productMetaData, ":")
+				.textAt("productprice", productPriceData, 0)
+				.valueAt("extaxprice", productPriceData, 1, ":");
+	}
+
+	@Benchmark
+	public Map<String, String> parseProductDetails() {
+		return extractor.parse(captured);
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.qa.opencart.benchmarks;
+
+import java.lang.reflect.Proxy;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * a WebDriver that does nothing, for benchmarks of code that only needs a driver
+ * to be constructed
+ */
+final class StubDriver {
+
+	private StubDriver() {
+	}
+
+	static WebDriver create() {
+		return (WebDriver) Proxy.newProxyInstance(StubDriver.class.getClassLoader(),
+				new Class<?>[] { WebDriver.class, JavascriptExecutor.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					case "toString":
+						return "StubDriver";
+					case "getCurrentUrl":
+						return "about:blank";
+					default:
+						return null;
+					}
+				});
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.qa.opencart.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.qa.opencart.utils.CSVUtil;
+import com.qa.opencart.utils.ExcelUtil;
+
+/**
+ * ExcelUtil.getTestData and CSVUtil.csvData on generated register-like sheets.
+ *
+ * cached: the data provider call of every test after the first one (in memory
+ * cache hit). cold: the first call on a file never seen before (parse + binary
+ * snapshot write), each invocation on a fresh copy of the file whose cache
+ * entry and snapshot are removed again afterwards.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TestDataBenchmark {
+
+	private static final String SHEET = "register";
+
+	@Param({ "10", "1000" })
+	private int rows;
+
+	private Path dir;
+	private Path xlsx;
+	private Path csv;
+
+	@Setup(Level.Trial)
+	public void writeFiles() throws IOException {
+		dir = Files.createTempDirectory("oc-bench-data");
+		xlsx = dir.resolve("register.xlsx");
+		csv = dir.resolve("register.csv");
+		// poi 3.9 workbooks are not closeable
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		try (OutputStream out = Files.newOutputStream(xlsx)) {
+			Sheet sheet = workbook.createSheet(SHEET);
+			String[] header = { "firstname", "lastname", "telephone", "password", "subscribe" };
+			Row headerRow = sheet.createRow(0);
+			for (int c = 0; c < header.length; c++) {
+				headerRow.createCell(c).setCellValue(header[c]);
+			}
+			for (int r = 1; r <= rows; r++) {
+				String[] values = row(r);
+				Row row = sheet.createRow(r);
+				for (int c = 0; c < values.length; c++) {
+					row.createCell(c).setCellValue(values[c]);
+				}
+			}
+			workbook.write(out);
+		}
+		StringBuilder text = new StringBuilder();
+		for (int r = 1; r <= rows; r++) {
+			text.append(String.join(",", row(r))).append('\n');
+		}
+		Files.writeString(csv, text, StandardCharsets.UTF_8);
+	}
+
+	private static String[] row(int r) {
+		return new String[] { "first" + r, "last" + r, String.valueOf(9876500000L + r), "pwd@" + r,
+				r % 2 == 0 ? "yes" : "no" };
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() throws IOException {
+		ExcelUtil.evict(xlsx);
+		CSVUtil.evict(csv);
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.deleteIfExists(file);
+			}
+		}
+		Files.deleteIfExists(dir);
+	}
+
+	/**
+	 * fresh copies for the cold benchmarks, its own state so the cached ones do
+	 * not pay for the per invocation copying
+	 */
+	@State(Scope.Thread)
+	public static class ColdFiles {
+		private Path xlsxCopy;
+		private Path csvCopy;
+		private int copies;
+
+		@Setup(Level.Invocation)
+		public void freshCopies(TestDataBenchmark data) throws IOException {
+			copies++;
+			xlsxCopy = Files.copy(data.xlsx, data.dir.resolve("register-" + copies + ".xlsx"),
+					StandardCopyOption.REPLACE_EXISTING);
+			csvCopy = Files.copy(data.csv, data.dir.resolve("register-" + copies + ".csv"),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		@TearDown(Level.Invocation)
+		public void deleteCopies() throws IOException {
+			ExcelUtil.evict(xlsxCopy);
+			CSVUtil.evict(csvCopy);
+			Files.deleteIfExists(xlsxCopy);
+			Files.deleteIfExists(csvCopy);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+	public Object[][] excelCached() {
+		return ExcelUtil.getTestData(xlsx, SHEET);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	public Object[][] excelCold(ColdFiles files) {
+		return ExcelUtil.getTestData(files.xlsxCopy, SHEET);
+	}
+
+	// CSVUtil.csvData(name) is getTable(./src/test/resources/testdata/<name>.csv).toArray()
+	@Benchmark
+	@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+	public Object[][] csvCached() {
+		return CSVUtil.getTable(csv).toArray();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	public Object[][] csvCold(ColdFiles files) {
+		return CSVUtil.getTable(files.csvCopy).toArray();
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.qa.opencart.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.qa.opencart.DriverQuit")
+@Label("Driver Quit")
+@Description("Quit of a pooled browser session")
+@Category({ FrameworkEvents.CATEGORY, "Driver" })
+@StackTrace(false)
+public class DriverQuitEvent extends Event {
+
+	@Label("Test")
+	String test;
+
+	@Label("Session Key")
+	String sessionKey;
+
+	@Label("Leases")
+	int leases;
+
+	@Label("Session Age")
+	@Timespan(Timespan.MILLISECONDS)
+	long ageMillis;
+
+	@Label("Outcome")
+	String outcome;
+
+	public void finish(String sessionKey, int leases, long ageMillis, Throwable error) {
+		end();
+		if (shouldCommit()) {
+			this.test = FrameworkEvents.currentTest();
+			this.sessionKey = sessionKey;
+			this.leases = leases;
+			this.ageMillis = ageMillis;
+			this.outcome = FrameworkEvents.outcome(error);
+			commit();
+		}
+	}
+
+}
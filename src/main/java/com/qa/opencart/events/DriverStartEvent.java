@@ -0,0 +1,38 @@
+package com.qa.opencart.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.qa.opencart.DriverStart")
+@Label("Driver Start")
+@Description("Launch of a browser session, up to the login page")
+@Category({ FrameworkEvents.CATEGORY, "Driver" })
+public class DriverStartEvent extends Event {
+
+	@Label("Test")
+	String test;
+
+	@Label("Browser")
+	String browser;
+
+	@Label("Session Key")
+	String sessionKey;
+
+	@Label("Outcome")
+	String outcome;
+
+	public void finish(String browser, String sessionKey, Throwable error) {
+		end();
+		if (shouldCommit()) {
+			this.test = FrameworkEvents.currentTest();
+			this.browser = browser;
+			this.sessionKey = sessionKey;
+			this.outcome = FrameworkEvents.outcome(error);
+			commit();
+		}
+	}
+
+}
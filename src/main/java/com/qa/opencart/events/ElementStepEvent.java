@@ -0,0 +1,49 @@
+package com.qa.opencart.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.qa.opencart.ElementStep")
+@Label("Element Step")
+@Description("ElementUtil lookup, wait or action on a locator")
+@Category({ FrameworkEvents.CATEGORY, "ElementUtil" })
+@StackTrace(false)
+public class ElementStepEvent extends Event {
+
+	@Label("Test")
+	String test;
+
+	@Label("Browser")
+	String browser;
+
+	@Label("Page")
+	String page;
+
+	@Label("Locator")
+	String locator;
+
+	@Label("Step")
+	@Description("find, wait or action")
+	String step;
+
+	@Label("Outcome")
+	String outcome;
+
+	public void finish(String page, Object locator, String step, Throwable error) {
+		end();
+		if (shouldCommit()) {
+			this.test = FrameworkEvents.currentTest();
+			this.browser = FrameworkEvents.currentBrowser();
+			this.page = page;
+			this.locator = String.valueOf(locator);
+			this.step = step;
+			this.outcome = FrameworkEvents.outcome(error);
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.qa.opencart.events;
+
+import java.util.List;
+
+import com.qa.opencart.factory.DriverFactory;
+
+import jdk.jfr.Event;
+
+/**
+ * Context the framework's flight recorder events are tagged with: the test the
+ * current thread is running (set by FlightRecorderListener) and the browser of
+ * the thread's session.
+ */
+public final class FrameworkEvents {
+
+	public static final String CATEGORY = "OpenCart";
+
+	public static final List<Class<? extends Event>> EVENT_TYPES = List.of(TestEvent.class, DriverStartEvent.class,
+			DriverQuitEvent.class, ElementStepEvent.class, TestDataLoadEvent.class, ScreenshotEvent.class);
+
+	private static final ThreadLocal<String> currentTest = new ThreadLocal<String>();
+
+	private FrameworkEvents() {
+	}
+
+	public static void setCurrentTest(String testName) {
+		if (testName == null) {
+			currentTest.remove();
+		} else {
+			currentTest.set(testName);
+		}
+	}
+
+	/**
+	 * @return the test of the current thread, null outside a test (suite start,
+	 *         warmup threads, @BeforeClass)
+	 */
+	public static String currentTest() {
+		return currentTest.get();
+	}
+
+	public static String currentBrowser() {
+		return DriverFactory.getSessionBrowser();
+	}
+
+	/**
+	 * outcome of a step from the exception it threw: "ok" for success, else the
+	 * exception's simple class name
+	 */
+	public static String outcome(Throwable error) {
+		return error == null ? "ok" : error.getClass().getSimpleName();
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.qa.opencart.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.qa.opencart.Screenshot")
+@Label("Screenshot")
+@Description("Capture of a failure screenshot")
+@Category({ FrameworkEvents.CATEGORY, "Driver" })
+@StackTrace(false)
+public class ScreenshotEvent extends Event {
+
+	@Label("Test")
+	String test;
+
+	@Label("Browser")
+	String browser;
+
+	@Label("Size")
+	@DataAmount
+	long bytes;
+
+	@Label("Outcome")
+	String outcome;
+
+	public void finish(long bytes, Throwable error) {
+		end();
+		if (shouldCommit()) {
+			this.test = FrameworkEvents.currentTest();
+			this.browser = FrameworkEvents.currentBrowser();
+			this.bytes = bytes;
+			this.outcome = FrameworkEvents.outcome(error);
+			commit();
+		}
+	}
+
+}
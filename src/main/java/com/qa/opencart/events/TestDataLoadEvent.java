@@ -0,0 +1,47 @@
+package com.qa.opencart.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.qa.opencart.TestDataLoad")
+@Label("Test Data Load")
+@Description("Data provider table from an xlsx sheet or a csv file")
+@Category({ FrameworkEvents.CATEGORY, "Test Data" })
+public class TestDataLoadEvent extends Event {
+
+	@Label("Test")
+	String test;
+
+	@Label("File")
+	String file;
+
+	@Label("Sheet")
+	String sheet;
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Source")
+	@Description("memory (cache hit), snapshot or parsed")
+	String source;
+
+	@Label("Outcome")
+	String outcome;
+
+	public void finish(String file, String sheet, int rows, String source, Throwable error) {
+		end();
+		if (shouldCommit()) {
+			this.test = FrameworkEvents.currentTest();
+			this.file = file;
+			this.sheet = sheet;
+			this.rows = rows;
+			this.source = source;
+			this.outcome = FrameworkEvents.outcome(error);
+			commit();
+		}
+	}
+
+}
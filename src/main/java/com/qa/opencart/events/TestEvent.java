@@ -0,0 +1,44 @@
+package com.qa.opencart.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.qa.opencart.Test")
+@Label("Test")
+@Description("A TestNG test method, from start to result")
+@Category({ FrameworkEvents.CATEGORY, "Test" })
+@StackTrace(false)
+public class TestEvent extends Event {
+
+	@Label("Test")
+	String test;
+
+	@Label("Lane")
+	@Description("TestNG <test> block the method runs in")
+	String lane;
+
+	@Label("Browser")
+	String browser;
+
+	@Label("Outcome")
+	String outcome;
+
+	public TestEvent(String test, String lane) {
+		this.test = test;
+		this.lane = lane;
+	}
+
+	public void finish(String outcome) {
+		end();
+		if (shouldCommit()) {
+			this.browser = FrameworkEvents.currentBrowser();
+			this.outcome = outcome;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.qa.opencart.factory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.qa.opencart.utils.FrameworkLogger;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * Run configuration, loaded once per JVM for every env.
+ *
+ * Layers, the last one wins:
+ * <ol>
+ * <li>./src/test/resources/config/&lt;env&gt;.config.properties (env from
+ * -Denv, qa by default)</li>
+ * <li>environment variables with the OC_ prefix, key in upper case with '_'
+ * for '.': OC_POOL_SIZE for pool.size, OC_BROWSER for browser. Unprefixed
+ * names are never read, USERNAME (Windows) or BROWSER (many Linux desktops)
+ * belong to the machine, not to the run</li>
+ * <li>system properties with the same key: -Dbrowser=chrome</li>
+ * </ol>
+ *
+ * The env var and system property layers also apply to keys the file does not
+ * have (-Dwire.budget=40, OC_LOCATOR_PROBE=true); those are looked up when
+ * asked for, the default of the caller applies when no layer has them.
+ *
+ * Instances are immutable and the typed values are parsed once, so parallel
+ * workers read them without locking. withBrowser gives the config of a
+ * &lt;test&gt; block that overrides the browser.
+ */
+public final class ConfigService {
+
+	private static final String CONFIG_PATH = "./src/test/resources/config/";
+	private static final String DEFAULT_ENV = "qa";
+	private static final String ENV_VAR_PREFIX = "OC_";
+
+	// parsed up front, so their env var / system property is applied at load time
+	// even when the file does not have them
+	private static final List<String> TYPED_KEYS = List.of("browser", "url", "headless", "incognito", "highlight");
+
+	private static final Map<String, ConfigService> configByEnv = new ConcurrentHashMap<String, ConfigService>();
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(ConfigService.class);
+
+	private final String env;
+	private final Map<String, String> values;
+	// false for fromProperties: the values are taken as they are
+	private final boolean layered;
+
+	private final String browser;
+	private final String url;
+	private final boolean headless;
+	private final boolean incognito;
+	private final boolean highlight;
+
+	private ConfigService(String env, Map<String, String> values, boolean layered) {
+		this.env = env;
+		this.values = Collections.unmodifiableMap(values);
+		this.layered = layered;
+		this.browser = values.getOrDefault("browser", "").toLowerCase().trim();
+		this.url = values.get("url");
+		this.headless = Boolean.parseBoolean(values.get("headless"));
+		this.incognito = Boolean.parseBoolean(values.get("incognito"));
+		this.highlight = Boolean.parseBoolean(values.get("highlight"));
+	}
+
+	/**
+	 * config of the env given by -Denv, qa when not set
+	 */
+	// mvn clean install -Denv="stage"
+	public static ConfigService getInstance() {
+		return forEnv(System.getProperty("env", DEFAULT_ENV));
+	}
+
+	public static ConfigService forEnv(String envName) {
+		return configByEnv.computeIfAbsent(envName.toLowerCase().trim(),
+				env -> load(env, Paths.get(CONFIG_PATH + env + ".config.properties")));
+	}
+
+	static ConfigService load(String env, Path file) {
+		if (System.getProperty("env") == null && env.equals(DEFAULT_ENV)) {
+			log.info("env is null, hence running the tests on QA env by default...");
+		}
+		log.info("Running tests on env: {}", env);
+		Properties fileProp = new Properties();
+		try (InputStream ip = Files.newInputStream(file)) {
+			fileProp.load(ip);
+		} catch (NoSuchFileException e) {
+			throw new FrameworkException("===INVALID ENV NAME==== : " + env);
+		} catch (IOException e) {
+			throw new FrameworkException("===CONFIG FILE COULD NOT BE READ=== : " + file + " " + e);
+		}
+
+		Map<String, String> values = new LinkedHashMap<String, String>();
+		for (String key : fileProp.stringPropertyNames()) {
+			values.put(key, fileProp.getProperty(key).trim());
+		}
+		for (String key : TYPED_KEYS) {
+			values.putIfAbsent(key, null);
+		}
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			String override = override(entry.getKey());
+			if (override != null) {
+				entry.setValue(override);
+			}
+		}
+		values.values().removeIf(v -> v == null);
+		return new ConfigService(env, values, true);
+	}
+
+	/**
+	 * the system property, else the OC_ env var of the key; null when neither is
+	 * set
+	 */
+	private static String override(String key) {
+		String value = System.getProperty(key);
+		if (value == null) {
+			value = System.getenv(envVarName(key));
+		}
+		return value == null ? null : value.trim();
+	}
+
+	/**
+	 * pool.size -&gt; OC_POOL_SIZE
+	 */
+	static String envVarName(String key) {
+		return ENV_VAR_PREFIX + key.toUpperCase().replace('.', '_');
+	}
+
+	/**
+	 * same config with another browser, e.g. the "browser" parameter of a
+	 * &lt;test&gt; block. A null browser keeps the configured one.
+	 */
+	public ConfigService withBrowser(String browserName) {
+		if (browserName == null || browserName.trim().equalsIgnoreCase(browser)) {
+			return this;
+		}
+		Map<String, String> copy = new LinkedHashMap<String, String>(values);
+		copy.put("browser", browserName.trim());
+		return new ConfigService(env, copy, layered);
+	}
+
+	public String getEnv() {
+		return env;
+	}
+
+	/**
+	 * browser name in lower case
+	 */
+	public String getBrowser() {
+		return browser;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	public boolean isIncognito() {
+		return incognito;
+	}
+
+	public boolean isHighlight() {
+		return highlight;
+	}
+
+	public String get(String key) {
+		String value = values.get(key);
+		if (value == null && layered) {
+			// not in the env file: -D / OC_ may still set it
+			value = override(key);
+		}
+		return value;
+	}
+
+	public String get(String key, String defaultValue) {
+		String value = get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	public int getInt(String key, int defaultValue) {
+		String value = get(key);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	/**
+	 * a mutable copy for code that still works with Properties
+	 */
+	public Properties toProperties() {
+		Properties prop = new Properties();
+		prop.putAll(values);
+		return prop;
+	}
+
+	/**
+	 * typed view of properties built by hand, taken as they are (no env file and
+	 * no env var / system property layers)
+	 */
+	public static ConfigService fromProperties(Properties prop) {
+		Map<String, String> values = new LinkedHashMap<String, String>();
+		for (String key : prop.stringPropertyNames()) {
+			values.put(key, prop.getProperty(key).trim());
+		}
+		return new ConfigService(System.getProperty("env", DEFAULT_ENV), values, false);
+	}
+
+	@Override
+	public String toString() {
+		return "env=" + env + " browser=" + browser + " headless=" + headless + " incognito=" + incognito
+				+ " highlight=" + highlight;
+	}
+
+}
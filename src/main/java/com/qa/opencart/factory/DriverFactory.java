@@ -1,8 +1,6 @@
 package com.qa.opencart.factory;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.time.Duration;
 import java.util.Properties;
 
 import org.openqa.selenium.OutputType;
@@ -13,10 +11,9 @@ import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.io.FileHandler;
 import org.openqa.selenium.safari.SafariDriver;
-import com.aventstack.chaintest.plugins.ChainTestListener;
+import com.qa.opencart.events.DriverStartEvent;
 import com.qa.opencart.exception.BrowserException;
-
-import FrameworkException.FrameworkException;
+import com.qa.opencart.utils.FrameworkLogger;
 
 //import com.aventstack.chaintest.plugins.ChainTestListener;
 //import com.qa.opencart.exceptions.BrowserException;
@@ -27,113 +24,220 @@ public class DriverFactory {
 	Properties prop;
 	OptionsManager optionsManager;
 	
-	public static ThreadLocal<WebDriver> tlDriver = new ThreadLocal<WebDriver>();
+	private static volatile DriverPool driverPool;
+	private static boolean shutdownHookAdded;
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(DriverFactory.class);
+
+	// seconds, covers every async wait of ElementUtil with the default timeouts
+	private static final int DEFAULT_SCRIPT_TIMEOUT = 30;
 
-	public static String highlight;
+	// read once per session in initDriver, ElementUtil picks it up when a page is created
+	private static final ThreadLocal<Boolean> highlight = ThreadLocal.withInitial(() -> false);
+	// config the current thread's session was started with, for recycleDriver
+	private static final ThreadLocal<ConfigService> sessionConfig = new ThreadLocal<ConfigService>();
 
 	/**
-	 * This method is used to init the driver on the basis of given browser name
+	 * This method is used to init the driver on the basis of given browser name.
+	 * The driver is leased from the session pool, a warm session is reused when
+	 * one is idle for the same browser and options.
 	 * 
-	 * @param browserName
+	 * @param prop
 	 */
 	public WebDriver initDriver(Properties prop) {
-		
+		return initDriver(ConfigService.fromProperties(prop));
+	}
+
+	public WebDriver initDriver(ConfigService config) {
+		log.step("browser name: {}", config.getBrowser());
 
-		String browserName = prop.getProperty("browser");
-		System.out.println("browser name : " + browserName);
-		ChainTestListener.log("browser name: "+browserName);
-		optionsManager = new OptionsManager(prop);
+		highlight.set(config.isHighlight());
+		sessionConfig.set(config);
 
-		highlight = prop.getProperty("highlight");
+		getDriverPool(config).lease(getSessionKey(config), () -> launchBrowser(config), config.getUrl());
+		return getDriver();
+	}
+	
+	/**
+	 * starts the browser for the given config on a background thread, a later
+	 * initDriver with the same browser picks it up already running
+	 * 
+	 * @return true when a launch was started
+	 */
+	public boolean prewarmDriver(ConfigService config) {
+		return getDriverPool(config).prewarm(getSessionKey(config), () -> launchBrowser(config));
+	}
+	
+	/**
+	 * launches a brand new browser session and opens the login page
+	 */
+	private WebDriver launchBrowser(ConfigService config) {
+		DriverStartEvent event = new DriverStartEvent();
+		event.begin();
+		Throwable error = null;
+		try {
+			return startBrowser(config);
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			event.finish(config.getBrowser(), getSessionKey(config), error);
+		}
+	}
 
-		switch (browserName.toLowerCase().trim()) {
+	private WebDriver startBrowser(ConfigService config) {
+		String browserName = config.getBrowser();
+		OptionsManager optionsManager = new OptionsManager(config);
+		WebDriver driver;
+
+		switch (browserName) {
 		case "chrome":
-			tlDriver.set(new ChromeDriver(optionsManager.getChromeOptions()));			
+			driver = new ChromeDriver(optionsManager.getChromeOptions());
 			break;
 		case "edge":
-			tlDriver.set(new EdgeDriver(optionsManager.getEdgeOptions()));			
+			driver = new EdgeDriver(optionsManager.getEdgeOptions());
 			break;
 		case "firefox":
-			tlDriver.set(new FirefoxDriver(optionsManager.getFirefoxOptions()));			
+			driver = new FirefoxDriver(optionsManager.getFirefoxOptions());
 			break;
 		case "safari":
-			tlDriver.set(new SafariDriver());			
+			driver = new SafariDriver();
 			break;
 
-//		default:
-//			System.out.println("plz pass the valid browser name..." + browserName);
-//			throw new BrowserException("===INVALID BROWSER===");
+		default:
+			log.warn("plz pass the valid browser name...{}", browserName);
+			throw new BrowserException("===INVALID BROWSER===");
 		}
 
-		getDriver().get(prop.getProperty("url"));// login page url
-		getDriver().manage().window().maximize();
-		getDriver().manage().deleteAllCookies();
-		return getDriver();
+		// wire.commands=false launches the bare session, without command accounting
+		if (Boolean.parseBoolean(config.get("wire.commands", "true"))) {
+			driver = WireCommandRecorder.decorate(driver);
+		}
+		driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(getScriptTimeout(config)));
+		driver.get(config.getUrl());// login page url
+		driver.manage().window().maximize();
+		driver.manage().deleteAllCookies();
+		return driver;
+	}
+	
+	/**
+	 * sessions can only be shared between tests using the same browser and options
+	 */
+	private static String getSessionKey(ConfigService config) {
+		return config.getBrowser() 
+				+ "|headless=" + config.isHeadless() 
+				+ "|incognito=" + config.isIncognito();
+	}
+	
+	/**
+	 * pool.size, pool.maxleases and pool.leasetimeout can be tuned in the config file
+	 */
+	private static synchronized DriverPool getDriverPool(ConfigService config) {
+		if (driverPool == null) {
+			int size = config.getInt("pool.size", 3);
+			int maxLeases = config.getInt("pool.maxleases", 20);
+			long leaseTimeout = config.getInt("pool.leasetimeout", 120);
+			driverPool = new DriverPool(size, maxLeases, leaseTimeout);
+			if (!shutdownHookAdded) {
+				// runs without BrowserWarmupListener still quit their idle sessions
+				Runtime.getRuntime().addShutdownHook(new Thread(DriverFactory::shutdownDriverPool));
+				shutdownHookAdded = true;
+			}
+		}
+		return driverPool;
+	}
+	
+	/**
+	 * logs the pool report and quits the idle sessions, at the end of the suite
+	 * or at JVM exit, whichever comes first. The next initDriver starts a new pool.
+	 */
+	public static synchronized void shutdownDriverPool() {
+		DriverPool pool = driverPool;
+		if (pool == null) {
+			return;
+		}
+		driverPool = null;
+		log.info("{}", pool.report());
+		pool.shutdown();
 	}
 	
 	
 	/**
-	 * getDriver: get the local thready copy of the driver
+	 * getDriver: get the driver leased to the current thread
 	 */
 	
 	public static WebDriver getDriver() {
-		return tlDriver.get();
+		return driverPool == null ? null : driverPool.current();
 	}
 	
+	/**
+	 * gives the current thread's driver back to the pool instead of quitting it
+	 */
+	public static void releaseDriver() {
+		if (driverPool != null) {
+			driverPool.release();
+		}
+	}
+	
+	/**
+	 * throws the current thread's session away (it is not given back to the pool)
+	 * and leases a fresh one with the same config, e.g. after the browser crashed
+	 * 
+	 * @return the new driver, null when the thread had no session
+	 */
+	public static WebDriver recycleDriver() {
+		ConfigService config = sessionConfig.get();
+		if (driverPool == null || config == null) {
+			return null;
+		}
+		driverPool.discard();
+		return new DriverFactory().initDriver(config);
+	}
 	
+	/**
+	 * highlight setting of the current thread's session
+	 */
+	public static boolean isHighlightEnabled() {
+		return highlight.get();
+	}
 	
+	public static DriverPool getDriverPool() {
+		return driverPool;
+	}
 
 	/**
-	 * this is used to init the config properties
+	 * script timeout (seconds) the current thread's session was started with,
+	 * script.timeout in the config
+	 */
+	public static int getSessionScriptTimeout() {
+		ConfigService config = sessionConfig.get();
+		return config == null ? DEFAULT_SCRIPT_TIMEOUT : getScriptTimeout(config);
+	}
+
+	private static int getScriptTimeout(ConfigService config) {
+		return config.getInt("script.timeout", DEFAULT_SCRIPT_TIMEOUT);
+	}
+
+	/**
+	 * browser of the current thread's session, null when it has none
+	 */
+	public static String getSessionBrowser() {
+		ConfigService config = sessionConfig.get();
+		return config == null ? null : config.getBrowser();
+	}
+	
+	
+
+	/**
+	 * this is used to init the config properties: a copy of the run config, the
+	 * env file is only read once per JVM (see ConfigService)
 	 * 
 	 * @return
 	 */
 
 	// mvn clean install -Denv="stage"
 	public Properties initProp() {
-
-		String envName = System.getProperty("env");
-		FileInputStream ip = null;
-		prop = new Properties();
-
-		try {
-			if (envName == null) {
-				System.out.println("env is null, hence running the tests on QA env by default...");
-				ip = new FileInputStream("./src/test/resources/config/qa.config.properties");
-			} else {
-				System.out.println("Running tests on env: " + envName);
-				switch (envName.toLowerCase().trim()) {
-				case "qa":
-					ip = new FileInputStream("./src/test/resources/config/qa.config.properties");
-					break;
-				case "dev":
-					ip = new FileInputStream("./src/test/resources/config/dev.config.properties");
-					break;
-				case "stage":
-					ip = new FileInputStream("./src/test/resources/config/stage.config.properties");
-					break;
-				case "uat":
-					ip = new FileInputStream("./src/test/resources/config/uat.config.properties");
-					break;
-				case "prod":
-					ip = new FileInputStream("./src/test/resources/config/prod.config.properties");
-					break;
-
-				default:
-					throw new FrameworkException("===INVALID ENV NAME==== : "+ envName);
-				}
-			}
-		} 
-		catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
-
-		try {
-			prop.load(ip);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		
+		prop = ConfigService.getInstance().toProperties();
 		return prop;
 	}
 	
@@ -0,0 +1,517 @@
+package com.qa.opencart.factory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.qa.opencart.events.DriverQuitEvent;
+import com.qa.opencart.exception.BrowserException;
+import com.qa.opencart.utils.FrameworkLogger;
+
+/**
+ * Bounded, thread safe pool of warm browser sessions.
+ *
+ * Sessions are grouped by a key (browser + launch options). A test thread
+ * leases one session, the session is cleaned (cookies, storage, extra windows)
+ * when it is released and navigated to the configured url on the next lease.
+ * Sessions that crashed or reached the max lease count are quit and replaced.
+ */
+public class DriverPool {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(DriverPool.class);
+
+	private final int maxSize;
+	private final int maxLeases;
+	private final long leaseTimeoutMillis;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	private final Map<String, Deque<PooledDriver>> idle = new HashMap<String, Deque<PooledDriver>>();
+	private final List<PooledDriver> live = new ArrayList<PooledDriver>();
+	private final ThreadLocal<PooledDriver> leased = new ThreadLocal<PooledDriver>();
+	private final Map<String, Deque<CompletableFuture<PooledDriver>>> warming = new HashMap<String, Deque<CompletableFuture<PooledDriver>>>();
+	private final ExecutorService launchExecutor = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "browser-warmup");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// stats
+	private long leases;
+	private long hits;
+	private long warmHits;
+	private long misses;
+	private long evictions;
+	private long totalWaitNanos;
+	private long maxWaitNanos;
+	private long retiredSessions;
+	private long retiredAgeMillis;
+
+	public DriverPool(int maxSize, int maxLeases, long leaseTimeoutSeconds) {
+		this.maxSize = Math.max(1, maxSize);
+		this.maxLeases = Math.max(1, maxLeases);
+		this.leaseTimeoutMillis = TimeUnit.SECONDS.toMillis(leaseTimeoutSeconds);
+	}
+
+	/**
+	 * one pooled browser session
+	 */
+	public static class PooledDriver {
+		private final WebDriver driver;
+		private final String key;
+		private final long createdAt = System.currentTimeMillis();
+		private int leaseCount;
+		// thread holding the lease, null while idle
+		private volatile Thread owner;
+
+		PooledDriver(WebDriver driver, String key) {
+			this.driver = driver;
+			this.key = key;
+		}
+
+		public WebDriver getDriver() {
+			return driver;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public int getLeaseCount() {
+			return leaseCount;
+		}
+
+		public long getAgeMillis() {
+			return System.currentTimeMillis() - createdAt;
+		}
+	}
+
+	/**
+	 * leases a session for the given key to the current thread. An idle warm
+	 * session is reused if present, otherwise a new one is launched as long as the
+	 * pool is not full. When the pool is full the call waits for a release up to
+	 * the lease timeout.
+	 *
+	 * @param key      browser + options key
+	 * @param launcher launches a new browser session
+	 * @param url      url to open on a reused session
+	 * @return the leased driver
+	 */
+	public WebDriver lease(String key, Supplier<WebDriver> launcher, String url) {
+		if (leased.get() != null) {
+			release();
+		}
+
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+		PooledDriver session;
+		do {
+			// null when the session found was broken, the lease is tried again
+			session = tryLease(key, launcher, url, start, deadline);
+		} while (session == null);
+
+		session.leaseCount++;
+		session.owner = Thread.currentThread();
+		leased.set(session);
+		return session.driver;
+	}
+
+	private enum Source {
+		IDLE, WARM, LAUNCH
+	}
+
+	private PooledDriver tryLease(String key, Supplier<WebDriver> launcher, String url, long start, long deadline) {
+		PooledDriver session = null;
+		List<PooledDriver> toQuit = new ArrayList<PooledDriver>();
+		CompletableFuture<PooledDriver> warm = null;
+		boolean launch = false;
+
+		lock.lock();
+		try {
+			while (session == null && warm == null && !launch) {
+				Deque<PooledDriver> queue = idle.get(key);
+				Deque<CompletableFuture<PooledDriver>> pending = warming.get(key);
+				PooledDriver victim;
+				if (queue != null && !queue.isEmpty()) {
+					session = queue.pollFirst();
+				} else if (pending != null && !pending.isEmpty()) {
+					// a browser launched at suite start, it may still be booting
+					warm = pending.pollFirst();
+				} else if (live.size() < maxSize) {
+					launch = true;
+				} else if ((victim = takeAbandoned()) != null || (victim = takeIdleOfOtherKey(key)) != null) {
+					// frees a slot, the victim is quit outside of the lock
+					live.remove(victim);
+					retire(victim);
+					toQuit.add(victim);
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new BrowserException("===NO BROWSER SESSION AVAILABLE IN POOL=== : " + key);
+					}
+					released.awaitNanos(remaining);
+				}
+			}
+			if (launch) {
+				// reserve the slot before launching outside of the lock
+				session = new PooledDriver(null, key);
+				live.add(session);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BrowserException("===INTERRUPTED WHILE WAITING FOR BROWSER SESSION===");
+		} finally {
+			lock.unlock();
+		}
+
+		for (PooledDriver victim : toQuit) {
+			quitQuietly(victim);
+		}
+		Source source;
+		if (warm != null) {
+			try {
+				session = warm.join();
+			} catch (CompletionException e) {
+				log.warn("pre-warmed browser failed to start, launching a new one: {}", e.getCause());
+				return null;
+			}
+			source = Source.WARM;
+		} else if (launch) {
+			session = launchInto(session, launcher);
+			source = Source.LAUNCH;
+		} else if (!prepareForLease(session, url)) {
+			evict(session);
+			return null;
+		} else {
+			source = Source.IDLE;
+		}
+		countLease(source, start);
+		return session;
+	}
+
+	/**
+	 * stats of a lease, once per lease whatever the attempts it took; the booting
+	 * time left of a warm session is part of the wait
+	 */
+	private void countLease(Source source, long start) {
+		lock.lock();
+		try {
+			leases++;
+			switch (source) {
+			case IDLE:
+				hits++;
+				break;
+			case WARM:
+				warmHits++;
+				break;
+			default:
+				misses++;
+			}
+			recordWait(System.nanoTime() - start);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * a leased session whose thread died without releasing it, its slot would be
+	 * lost for the rest of the run
+	 */
+	private PooledDriver takeAbandoned() {
+		for (PooledDriver session : live) {
+			Thread owner = session.owner;
+			if (owner != null && !owner.isAlive()) {
+				log.warn("browser session leased by finished thread {} was never released, reclaiming it",
+						owner.getName());
+				session.owner = null;
+				return session;
+			}
+		}
+		return null;
+	}
+
+	private PooledDriver launchInto(PooledDriver reserved, Supplier<WebDriver> launcher) {
+		PooledDriver session;
+		try {
+			session = new PooledDriver(launcher.get(), reserved.key);
+		} catch (RuntimeException e) {
+			removeLive(reserved);
+			throw e;
+		}
+		lock.lock();
+		try {
+			live.set(live.indexOf(reserved), session);
+		} finally {
+			lock.unlock();
+		}
+		return session;
+	}
+
+	/**
+	 * starts launching a session for the given key on a background thread so a
+	 * later lease finds it already running. Nothing is launched when the pool is
+	 * full.
+	 *
+	 * @return true when a launch was started
+	 */
+	public boolean prewarm(String key, Supplier<WebDriver> launcher) {
+		PooledDriver reserved = new PooledDriver(null, key);
+		lock.lock();
+		try {
+			if (live.size() >= maxSize || launchExecutor.isShutdown()) {
+				return false;
+			}
+			live.add(reserved);
+			CompletableFuture<PooledDriver> future = CompletableFuture
+					.supplyAsync(() -> launchInto(reserved, launcher), launchExecutor);
+			warming.computeIfAbsent(key, k -> new ArrayDeque<CompletableFuture<PooledDriver>>()).addLast(future);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * returns the session leased to the current thread, or null
+	 */
+	public WebDriver current() {
+		PooledDriver session = leased.get();
+		return session == null ? null : session.driver;
+	}
+
+	/**
+	 * gives the current thread's session back to the pool. The session is cleaned
+	 * for the next lease or quit when it is broken or worn out.
+	 */
+	public void release() {
+		PooledDriver session = leased.get();
+		if (session == null) {
+			return;
+		}
+		leased.remove();
+		session.owner = null;
+
+		if (session.leaseCount >= maxLeases || !cleanUp(session)) {
+			evict(session);
+			return;
+		}
+
+		lock.lock();
+		try {
+			idle.computeIfAbsent(session.key, k -> new ArrayDeque<PooledDriver>()).addLast(session);
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * quits the current thread's session instead of returning it to the pool
+	 */
+	public void discard() {
+		PooledDriver session = leased.get();
+		if (session != null) {
+			leased.remove();
+			session.owner = null;
+			evict(session);
+		}
+	}
+
+	/**
+	 * quits every idle session, used at the end of the run
+	 */
+	public void shutdown() {
+		List<PooledDriver> toQuit = new ArrayList<PooledDriver>();
+		List<CompletableFuture<PooledDriver>> neverLeased = new ArrayList<CompletableFuture<PooledDriver>>();
+		lock.lock();
+		try {
+			for (Deque<PooledDriver> queue : idle.values()) {
+				toQuit.addAll(queue);
+				queue.clear();
+			}
+			for (Deque<CompletableFuture<PooledDriver>> pending : warming.values()) {
+				neverLeased.addAll(pending);
+				pending.clear();
+			}
+		} finally {
+			lock.unlock();
+		}
+		for (CompletableFuture<PooledDriver> future : neverLeased) {
+			// pre-warmed for a <test> that never ran
+			try {
+				toQuit.add(future.join());
+			} catch (CompletionException e) {
+				// launch failed, nothing to quit
+			}
+		}
+		for (PooledDriver session : toQuit) {
+			evict(session);
+		}
+		launchExecutor.shutdownNow();
+	}
+
+	private void recordWait(long waited) {
+		totalWaitNanos += waited;
+		maxWaitNanos = Math.max(maxWaitNanos, waited);
+	}
+
+	private PooledDriver takeIdleOfOtherKey(String key) {
+		for (Map.Entry<String, Deque<PooledDriver>> entry : idle.entrySet()) {
+			if (!entry.getKey().equals(key) && !entry.getValue().isEmpty()) {
+				return entry.getValue().pollFirst();
+			}
+		}
+		return null;
+	}
+
+	private void evict(PooledDriver session) {
+		removeLive(session);
+		lock.lock();
+		try {
+			retire(session);
+		} finally {
+			lock.unlock();
+		}
+		quitQuietly(session);
+	}
+
+	private void removeLive(PooledDriver session) {
+		lock.lock();
+		try {
+			live.remove(session);
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void retire(PooledDriver session) {
+		evictions++;
+		retiredSessions++;
+		retiredAgeMillis += session.getAgeMillis();
+	}
+
+	private void quitQuietly(PooledDriver session) {
+		DriverQuitEvent event = new DriverQuitEvent();
+		event.begin();
+		WebDriverException error = null;
+		try {
+			if (session.driver != null) {
+				session.driver.quit();
+			}
+		} catch (WebDriverException e) {
+			error = e;
+			log.warn("browser session was already gone: {}", e.getMessage());
+		}
+		event.finish(session.key, session.leaseCount, session.getAgeMillis(), error);
+	}
+
+	/**
+	 * removes the state left by the previous test: extra windows, cookies and web
+	 * storage
+	 */
+	private boolean cleanUp(PooledDriver session) {
+		WebDriver driver = session.driver;
+		try {
+			Set<String> handles = driver.getWindowHandles();
+			if (handles.size() > 1) {
+				String keep = handles.iterator().next();
+				for (String handle : handles) {
+					if (!handle.equals(keep)) {
+						driver.switchTo().window(handle).close();
+					}
+				}
+				driver.switchTo().window(keep);
+			}
+			driver.manage().deleteAllCookies();
+			((JavascriptExecutor) driver).executeScript(
+					"try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+			return true;
+		} catch (WebDriverException e) {
+			log.warn("browser session could not be reset, evicting it: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	private boolean prepareForLease(PooledDriver session, String url) {
+		try {
+			session.driver.get(url);
+			return true;
+		} catch (WebDriverException e) {
+			log.warn("pooled browser session crashed, evicting it: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	// *****************Pool stats**************//
+
+	public double getHitRate() {
+		lock.lock();
+		try {
+			return leases == 0 ? 0 : (double) (hits + warmHits) / leases;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public double getAverageLeaseWaitMillis() {
+		lock.lock();
+		try {
+			return leases == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos) / 1000.0 / leases;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * average age of the sessions alive right now, in millis
+	 */
+	public double getAverageSessionAgeMillis() {
+		lock.lock();
+		try {
+			long total = 0;
+			int count = 0;
+			for (PooledDriver session : live) {
+				if (session.driver != null) {
+					total += session.getAgeMillis();
+					count++;
+				}
+			}
+			return count == 0 ? 0 : (double) total / count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public String report() {
+		lock.lock();
+		try {
+			return String.format(
+					"driver pool: size=%d live=%d leases=%d hits=%d warmHits=%d misses=%d hitRate=%.1f%% "
+							+ "avgLeaseWait=%.1fms maxLeaseWait=%.1fms avgSessionAge=%.1fs evictions=%d "
+							+ "avgRetiredSessionAge=%.1fs",
+					maxSize, live.size(), leases, hits, warmHits, misses, getHitRate() * 100, getAverageLeaseWaitMillis(),
+					TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) / 1000.0, getAverageSessionAgeMillis() / 1000,
+					evictions, retiredSessions == 0 ? 0 : retiredAgeMillis / 1000.0 / retiredSessions);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -7,21 +7,31 @@ import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxOptions;
 
+import com.qa.opencart.utils.FrameworkLogger;
+
 public class OptionsManager {
-	private Properties prop;
+	private final boolean headless;
+	private final boolean incognito;
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(OptionsManager.class);
 
 	public OptionsManager(Properties prop) {
-		this.prop = prop;
+		this(ConfigService.fromProperties(prop));
+	}
+
+	public OptionsManager(ConfigService config) {
+		this.headless = config.isHeadless();
+		this.incognito = config.isIncognito();
 	}
 
 	public ChromeOptions getChromeOptions() {
 		ChromeOptions co = new ChromeOptions();
-		if (Boolean.parseBoolean(prop.getProperty("headless"))) {
-			System.out.println("---Running in headless mode----");
+		if (headless) {
+			log.info("---Running in headless mode----");
 			co.addArguments("--headless");
 		}
-		if (Boolean.parseBoolean(prop.getProperty("incognito"))) {
-			System.out.println("---Running in incognito mode----");
+		if (incognito) {
+			log.info("---Running in incognito mode----");
 			co.addArguments("--incognito");
 		}
 		return co;
@@ -29,12 +39,12 @@ public class OptionsManager {
 
 	public FirefoxOptions getFirefoxOptions() {
 		FirefoxOptions fo = new FirefoxOptions();
-		if (Boolean.parseBoolean(prop.getProperty("headless"))) {
-			System.out.println("---Running in headless mode----");
+		if (headless) {
+			log.info("---Running in headless mode----");
 			fo.addArguments("--headless");
 		}
-		if (Boolean.parseBoolean(prop.getProperty("incognito"))) {
-			System.out.println("---Running in incognito mode----");
+		if (incognito) {
+			log.info("---Running in incognito mode----");
 			fo.addArguments("--incognito");
 		}
 		return fo;
@@ -42,12 +52,12 @@ public class OptionsManager {
 
 	public EdgeOptions getEdgeOptions() {
 		EdgeOptions eo = new EdgeOptions();
-		if (Boolean.parseBoolean(prop.getProperty("headless"))) {
-			System.out.println("---Running in headless mode----");
+		if (headless) {
+			log.info("---Running in headless mode----");
 			eo.addArguments("--headless");
 		}
-		if (Boolean.parseBoolean(prop.getProperty("incognito"))) {
-			System.out.println("---Running in incognito mode----");
+		if (incognito) {
+			log.info("---Running in incognito mode----");
 			eo.addArguments("--inprivate");
 		}
 		return eo;
@@ -0,0 +1,184 @@
+package com.qa.opencart.factory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import com.qa.opencart.utils.LatencyHistogram;
+
+/**
+ * Counts and times every driver command (findElement, getText, executeScript,
+ * getScreenshotAs, navigation, ...) of the sessions launched by DriverFactory,
+ * through Selenium's EventFiringDecorator.
+ *
+ * Commands are charged to the test the current thread is running (begin/end,
+ * called by WireCommandListener); commands outside a test (launch, login in
+ * a @BeforeClass, pool cleanup) only count in the run totals.
+ */
+public class WireCommandRecorder implements WebDriverListener {
+
+	private static final WireCommandRecorder INSTANCE = new WireCommandRecorder();
+
+	// calls on the decorated objects that do not go over the wire
+	private static final Set<String> LOCAL_CALLS = Set.of("manage", "navigate", "switchTo", "window", "timeouts",
+			"logs", "getWrappedDriver", "getWrappedElement", "toString", "hashCode", "equals");
+
+	private final Map<String, LatencyHistogram> runTotals = new ConcurrentHashMap<String, LatencyHistogram>();
+	private final ThreadLocal<TestCommands> current = new ThreadLocal<TestCommands>();
+	private final ThreadLocal<Deque<Long>> starts = ThreadLocal.withInitial(ArrayDeque::new);
+
+	public static WireCommandRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * driver commands of one test, by command name: {count, nanos}
+	 */
+	public static class TestCommands {
+		private final Map<String, long[]> byCommand = new TreeMap<String, long[]>();
+		private long count;
+		private long nanos;
+
+		void record(String command, long elapsed) {
+			long[] stats = byCommand.computeIfAbsent(command, c -> new long[2]);
+			stats[0]++;
+			stats[1] += elapsed;
+			count++;
+			nanos += elapsed;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getMillis() {
+			return nanos / 1_000_000.0;
+		}
+
+		public long getCount(String command) {
+			long[] stats = byCommand.get(command);
+			return stats == null ? 0 : stats[0];
+		}
+
+		/**
+		 * command -> {count, millis}
+		 */
+		public Map<String, Map<String, Object>> toMap() {
+			Map<String, Map<String, Object>> map = new LinkedHashMap<String, Map<String, Object>>();
+			for (Map.Entry<String, long[]> entry : byCommand.entrySet()) {
+				Map<String, Object> stats = new LinkedHashMap<String, Object>();
+				stats.put("count", entry.getValue()[0]);
+				stats.put("millis", Math.round(entry.getValue()[1] / 10_000.0) / 100.0);
+				map.put(entry.getKey(), stats);
+			}
+			return map;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(String.format("%d driver commands, %.1fms", count, getMillis()));
+			for (Map.Entry<String, long[]> entry : byCommand.entrySet()) {
+				sb.append(System.lineSeparator()).append(String.format("  %-28s %5d %10.1fms", entry.getKey(),
+						entry.getValue()[0], entry.getValue()[1] / 1_000_000.0));
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * wraps a freshly launched session, every command on it (and on the
+	 * elements, windows, alerts it returns) is recorded
+	 */
+	public static WebDriver decorate(WebDriver driver) {
+		return new EventFiringDecorator<WebDriver>(INSTANCE).decorate(driver);
+	}
+
+	/**
+	 * starts charging the current thread's commands to a new test
+	 */
+	public void begin() {
+		current.set(new TestCommands());
+	}
+
+	/**
+	 * @return the commands of the test the current thread was running, null if
+	 *         none was started
+	 */
+	public TestCommands end() {
+		TestCommands commands = current.get();
+		current.remove();
+		return commands;
+	}
+
+	/**
+	 * run totals, command -> latency histogram
+	 */
+	public Map<String, LatencyHistogram> getRunTotals() {
+		return new TreeMap<String, LatencyHistogram>(runTotals);
+	}
+
+	@Override
+	public void beforeAnyCall(Object target, Method method, Object[] args) {
+		if (!LOCAL_CALLS.contains(method.getName())) {
+			starts.get().push(System.nanoTime());
+		}
+	}
+
+	@Override
+	public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+		record(target, method);
+	}
+
+	@Override
+	public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+		record(target, method);
+	}
+
+	private void record(Object target, Method method) {
+		if (LOCAL_CALLS.contains(method.getName()) || starts.get().isEmpty()) {
+			return;
+		}
+		long elapsed = System.nanoTime() - starts.get().pop();
+		String command = commandName(target, method);
+		runTotals.computeIfAbsent(command, c -> new LatencyHistogram()).record(elapsed);
+		TestCommands commands = current.get();
+		if (commands != null) {
+			commands.record(command, elapsed);
+		}
+	}
+
+	private static String commandName(Object target, Method method) {
+		String name = method.getName();
+		if (target instanceof WebDriver.Navigation) {
+			return "navigate." + name;
+		}
+		if (target instanceof WebDriver.TargetLocator) {
+			return "switchTo." + name;
+		}
+		if (target instanceof WebDriver.Options) {
+			return "manage." + name;
+		}
+		if (target instanceof WebDriver.Window) {
+			return "window." + name;
+		}
+		if (target instanceof WebDriver.Timeouts) {
+			return "timeouts." + name;
+		}
+		if (target instanceof Alert) {
+			return "alert." + name;
+		}
+		return name;
+	}
+
+}
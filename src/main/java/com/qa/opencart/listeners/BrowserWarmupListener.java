@@ -0,0 +1,40 @@
+package com.qa.opencart.listeners;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlTest;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.utils.FrameworkLogger;
+
+/**
+ * Launches the browsers of every &lt;test&gt; block in the background as soon as
+ * the suite xml is parsed, so BaseTest.setup leases an already running session
+ * instead of booting one per lane.
+ */
+public class BrowserWarmupListener implements ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(BrowserWarmupListener.class);
+
+	@Override
+	public void onStart(ISuite suite) {
+		DriverFactory df = new DriverFactory();
+		ConfigService config = ConfigService.getInstance();
+
+		int started = 0;
+		for (XmlTest test : suite.getXmlSuite().getTests()) {
+			//same override as BaseTest.setup
+			if (df.prewarmDriver(config.withBrowser(test.getParameter("browser")))) {
+				started++;
+			}
+		}
+		log.info("pre-warming {} browser(s) for suite: {}", started, suite.getName());
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		DriverFactory.shutdownDriverPool();
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.qa.opencart.listeners;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.TestHistory;
+
+import io.qameta.allure.Severity;
+import io.qameta.allure.SeverityLevel;
+
+/**
+ * Orders the work so the most likely and most important failures show up
+ * first.
+ *
+ * Every test gets a risk: its @Severity weight (BLOCKER 5 .. TRIVIAL 1, NORMAL
+ * without annotation) times its recent failure rate from TestHistory plus a
+ * floor, so a test that never failed still counts. Work is ordered by risk per
+ * second of expected run time, highest first:
+ * <ul>
+ * <li>&lt;test&gt; blocks (lanes) of a suite, when the suite is loaded</li>
+ * <li>classes within a lane; a class stays in one piece, its @BeforeClass
+ * (login) and the shared browser are set up for all its methods</li>
+ * <li>methods within a class, after their explicit priority: a priority like
+ * doLoginTest's Short.MAX_VALUE still keeps it last in its class</li>
+ * </ul>
+ * Methods with dependsOn are not given to interceptors and keep TestNG's order.
+ */
+public class FailFastMethodInterceptor implements IMethodInterceptor, IAlterSuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(FailFastMethodInterceptor.class);
+
+	// share of the risk a test has even without any failure in its history
+	private static final double RISK_FLOOR = 0.1;
+	// expected duration of a test without history
+	private static final double DEFAULT_MILLIS = 10000;
+	private static final double MIN_MILLIS = 100;
+
+	@Override
+	public void alter(List<XmlSuite> suites) {
+		for (XmlSuite suite : suites) {
+			// identity maps: the hash of xml tests and classes changes with their index
+			Map<XmlTest, Double> scores = new IdentityHashMap<XmlTest, Double>();
+			for (XmlTest test : suite.getTests()) {
+				double[] laneTotals = new double[2];
+				Map<XmlClass, Double> classScores = new IdentityHashMap<XmlClass, Double>();
+				for (XmlClass xmlClass : test.getXmlClasses()) {
+					double[] totals = classTotals(xmlClass.getSupportClass());
+					classScores.put(xmlClass, score(totals));
+					laneTotals[0] += totals[0];
+					laneTotals[1] += totals[1];
+				}
+				scores.put(test, score(laneTotals));
+
+				// with preserve-order TestNG runs the classes by their index
+				List<XmlClass> classes = new ArrayList<XmlClass>(test.getXmlClasses());
+				classes.sort(Comparator.comparingDouble((XmlClass c) -> classScores.get(c)).reversed());
+				for (int i = 0; i < classes.size(); i++) {
+					classes.get(i).setIndex(i);
+				}
+				test.setXmlClasses(classes);
+			}
+			List<XmlTest> tests = new ArrayList<XmlTest>(suite.getTests());
+			tests.sort(Comparator.comparingDouble((XmlTest t) -> scores.get(t)).reversed());
+			if (!tests.equals(suite.getTests())) {
+				reorder(suite, tests);
+			}
+			log.info("fail fast lane order of {}: {}", suite.getName(), tests.stream().map(XmlTest::getName).toList());
+		}
+	}
+
+	/**
+	 * TestNG runs the &lt;test&gt; blocks by the index they got when created, so
+	 * they are created again in the new order
+	 */
+	private static void reorder(XmlSuite suite, List<XmlTest> tests) {
+		suite.setTests(new ArrayList<XmlTest>());
+		for (XmlTest test : tests) {
+			// clone() adds the copy to the suite, with the next index
+			XmlTest copy = (XmlTest) test.clone();
+			copy.setThreadCount(test.getThreadCount());
+			copy.setPreserveOrder(test.getPreserveOrder());
+			copy.setGroupByInstances(test.getGroupByInstances());
+			copy.setMethodSelectors(test.getMethodSelectors());
+			copy.setXmlDependencyGroups(test.getXmlDependencyGroups());
+		}
+	}
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		Map<Class<?>, List<IMethodInstance>> byClass = new LinkedHashMap<Class<?>, List<IMethodInstance>>();
+		Map<IMethodInstance, Double> scores = new LinkedHashMap<IMethodInstance, Double>();
+		Map<Class<?>, double[]> classTotals = new LinkedHashMap<Class<?>, double[]>();
+		for (IMethodInstance instance : methods) {
+			ITestNGMethod method = instance.getMethod();
+			String key = TestHistory.methodKey(method);
+			double risk = risk(method.getConstructorOrMethod().getMethod(), key);
+			double millis = expectedMillis(key);
+			scores.put(instance, risk / millis);
+			byClass.computeIfAbsent(method.getRealClass(), c -> new ArrayList<IMethodInstance>()).add(instance);
+			double[] totals = classTotals.computeIfAbsent(method.getRealClass(), c -> new double[2]);
+			totals[0] += risk;
+			totals[1] += millis;
+		}
+
+		List<Class<?>> classes = new ArrayList<Class<?>>(byClass.keySet());
+		classes.sort(Comparator.comparingDouble((Class<?> c) -> classTotals.get(c)[0] / classTotals.get(c)[1]).reversed());
+		List<IMethodInstance> ordered = new ArrayList<IMethodInstance>(methods.size());
+		for (Class<?> testClass : classes) {
+			List<IMethodInstance> classMethods = byClass.get(testClass);
+			classMethods.sort(Comparator.comparingInt((IMethodInstance m) -> m.getMethod().getPriority())
+					.thenComparing(Comparator.comparingDouble((IMethodInstance m) -> scores.get(m)).reversed()));
+			ordered.addAll(classMethods);
+		}
+		log.info("fail fast order of {}: {}", context.getName(),
+				ordered.stream().map(m -> m.getMethod().getMethodName()).toList());
+		return ordered;
+	}
+
+	/**
+	 * summed risk and expected millis of the enabled test methods of a class
+	 */
+	private static double[] classTotals(Class<?> testClass) {
+		double[] totals = new double[2];
+		for (Method method : testClass.getMethods()) {
+			Test annotation = method.getAnnotation(Test.class);
+			if (annotation != null && annotation.enabled()) {
+				String key = TestHistory.methodKey(testClass.getName(), method.getName());
+				totals[0] += risk(method, key);
+				totals[1] += expectedMillis(key);
+			}
+		}
+		return totals;
+	}
+
+	private static double score(double[] totals) {
+		return totals[1] == 0 ? 0 : totals[0] / totals[1];
+	}
+
+	private static double risk(Method method, String key) {
+		return severityWeight(method) * (RISK_FLOOR + TestHistory.getInstance().getFailureRate(key));
+	}
+
+	private static double expectedMillis(String key) {
+		double millis = TestHistory.getInstance().getTotalMillis(key);
+		return millis < 0 ? DEFAULT_MILLIS : Math.max(MIN_MILLIS, millis);
+	}
+
+	private static int severityWeight(Method method) {
+		Severity severity = method.getAnnotation(Severity.class);
+		if (severity == null) {
+			severity = method.getDeclaringClass().getAnnotation(Severity.class);
+		}
+		SeverityLevel level = severity == null ? SeverityLevel.NORMAL : severity.value();
+		switch (level) {
+		case BLOCKER:
+			return 5;
+		case CRITICAL:
+			return 4;
+		case NORMAL:
+			return 3;
+		case MINOR:
+			return 2;
+		default:
+			return 1;
+		}
+	}
+
+}
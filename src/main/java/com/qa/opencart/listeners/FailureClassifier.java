@@ -0,0 +1,89 @@
+package com.qa.opencart.listeners;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.interactions.MoveTargetOutOfBoundsException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.openqa.selenium.support.ui.FluentWait;
+
+import com.qa.opencart.exception.BrowserException;
+
+/**
+ * Sorts a test failure into one of three classes, so only failures a retry can
+ * fix are retried.
+ */
+public class FailureClassifier {
+
+	public enum FailureType {
+		/** browser or driver session broken: retried with a fresh session */
+		INFRASTRUCTURE,
+		/** page not ready in time: retried in the same session */
+		FLAKY_TIMING,
+		/** assertion or test bug: fails the same way again, never retried */
+		DETERMINISTIC
+	}
+
+	private static final String[] INFRASTRUCTURE_MESSAGES = { "not reachable", "disconnected", "session deleted",
+			"invalid session id", "connection refused", "target window already closed", "tab crashed",
+			"browsing context has been discarded", "failed to decode response from marionette" };
+
+	public static FailureType classify(Throwable failure) {
+		FailureType type = FailureType.DETERMINISTIC;
+		for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+			if (isInfrastructure(t)) {
+				// the root problem: no point in looking further
+				return FailureType.INFRASTRUCTURE;
+			}
+			if (isTiming(t) || t instanceof NoSuchElementException && thrownInWait(t)) {
+				type = FailureType.FLAKY_TIMING;
+			}
+		}
+		return type;
+	}
+
+	private static boolean isInfrastructure(Throwable t) {
+		if (t instanceof SessionNotCreatedException || t instanceof NoSuchSessionException
+				|| t instanceof UnreachableBrowserException || t instanceof BrowserException
+				|| t instanceof IOException) {
+			return true;
+		}
+		if (t instanceof WebDriverException && t.getMessage() != null) {
+			String message = t.getMessage().toLowerCase(Locale.ROOT);
+			for (String infraMessage : INFRASTRUCTURE_MESSAGES) {
+				if (message.contains(infraMessage)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isTiming(Throwable t) {
+		return t instanceof TimeoutException || t instanceof StaleElementReferenceException
+				|| t instanceof ElementClickInterceptedException || t instanceof ElementNotInteractableException
+				|| t instanceof MoveTargetOutOfBoundsException;
+	}
+
+	/**
+	 * a missing element is only a timing problem when an explicit wait gave up on
+	 * it; a plain findElement miss is a wrong locator or page and fails again
+	 */
+	private static boolean thrownInWait(Throwable t) {
+		for (StackTraceElement frame : t.getStackTrace()) {
+			if (FluentWait.class.getName().equals(frame.getClassName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.qa.opencart.listeners;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import com.qa.opencart.events.FrameworkEvents;
+import com.qa.opencart.events.TestEvent;
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.TestHistory;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+/**
+ * Test start/end flight recorder events, and the recording itself when
+ * jfr.record=true (config or -D): started with the suite, with the JDK
+ * settings named by jfr.settings (default or profile), and dumped to
+ * target/jfr/&lt;suite&gt;.jfr when the suite is done. Open it in JDK Mission
+ * Control, the OpenCart events show every parallel lane on its thread.
+ *
+ * The events are also recorded by a recording started from the command line
+ * (-XX:StartFlightRecording), without jfr.record.
+ */
+public class FlightRecorderListener implements ITestListener, ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(FlightRecorderListener.class);
+
+	private static final String JFR_DIR = "./target/jfr";
+
+	private static final ThreadLocal<TestEvent> testEvent = new ThreadLocal<TestEvent>();
+
+	private Recording recording;
+
+	@Override
+	public void onStart(ISuite suite) {
+		ConfigService config = ConfigService.getInstance();
+		if (!Boolean.parseBoolean(config.get("jfr.record", "false"))) {
+			return;
+		}
+		String settings = config.get("jfr.settings", "default");
+		try {
+			recording = new Recording(Configuration.getConfiguration(settings));
+		} catch (IOException | ParseException e) {
+			log.warn("jfr settings {} could not be read, recording with the defaults: {}", settings, e.toString());
+			recording = new Recording();
+		}
+		recording.setName(suite.getName());
+		for (Class<? extends Event> type : FrameworkEvents.EVENT_TYPES) {
+			recording.enable(type);
+		}
+		recording.start();
+		log.info("flight recording started for {} ({} settings)", suite.getName(), settings);
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		if (recording == null) {
+			return;
+		}
+		Path file = Paths.get(JFR_DIR, suite.getName().replaceAll("[^A-Za-z0-9_-]", "_") + ".jfr");
+		try {
+			Files.createDirectories(file.getParent());
+			recording.stop();
+			recording.dump(file);
+			log.info("flight recording written to {}", file);
+		} catch (IOException e) {
+			log.warn("flight recording could not be written to {} : {}", file, e.toString());
+		} finally {
+			recording.close();
+			recording = null;
+		}
+	}
+
+	@Override
+	public void onTestStart(ITestResult result) {
+		String test = TestHistory.methodKey(result.getMethod());
+		FrameworkEvents.setCurrentTest(test);
+		TestEvent event = new TestEvent(test, result.getTestContext().getName());
+		event.begin();
+		testEvent.set(event);
+	}
+
+	@Override
+	public void onTestSuccess(ITestResult result) {
+		finish("passed");
+	}
+
+	@Override
+	public void onTestFailure(ITestResult result) {
+		finish("failed");
+	}
+
+	@Override
+	public void onTestSkipped(ITestResult result) {
+		finish(result.wasRetried() ? "retried" : "skipped");
+	}
+
+	private static void finish(String outcome) {
+		TestEvent event = testEvent.get();
+		testEvent.remove();
+		FrameworkEvents.setCurrentTest(null);
+		if (event != null) {
+			event.finish(outcome);
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.qa.opencart.listeners;
+
+import java.nio.file.Paths;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.LocatorProfiler;
+import com.qa.opencart.utils.WaitEngine;
+
+/**
+ * Prints the framework's own statistics at the end of the suite, so we can see
+ * where the run spends its time.
+ */
+public class FrameworkReportListener implements ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(FrameworkReportListener.class);
+
+	private static final String LOCATOR_REPORT = "./target/locator-profile.txt";
+
+	@Override
+	public void onFinish(ISuite suite) {
+		log.info("{}", WaitEngine.getInstance().report());
+		LocatorProfiler profiler = LocatorProfiler.getInstance();
+		if (profiler.isEnabled()) {
+			log.info("{}", profiler.report());
+			profiler.writeReport(Paths.get(LOCATOR_REPORT));
+		}
+	}
+
+}
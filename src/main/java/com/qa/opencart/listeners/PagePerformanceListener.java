@@ -0,0 +1,70 @@
+package com.qa.opencart.listeners;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import com.aventstack.chaintest.plugins.ChainTestListener;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.PagePerformance;
+
+import io.qameta.allure.Allure;
+
+/**
+ * Page performance budgets of the functional tests: the budgets a test's pages
+ * exceeded, and those of the setup pages opened before it (@BeforeTest,
+ * @BeforeClass), are attached to its Allure and ChainTest results, and fail it
+ * at the end in soft mode (hard mode already failed it at the page transition). The
+ * per page report is logged and written to target/page-performance.json when
+ * the suite is done.
+ */
+public class PagePerformanceListener implements IInvokedMethodListener, ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(PagePerformanceListener.class);
+
+	private static final String SUMMARY_FILE = "./target/page-performance.json";
+
+	@Override
+	public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (method.isTestMethod()) {
+			PagePerformance.getInstance().beginTest();
+		}
+	}
+
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod()) {
+			return;
+		}
+		PagePerformance performance = PagePerformance.getInstance();
+		List<String> violations = performance.endTest();
+		if (violations.isEmpty()) {
+			return;
+		}
+		String text = String.join(System.lineSeparator(), violations);
+		Allure.addAttachment("Page performance budgets", "text/plain", text);
+		for (String violation : violations) {
+			ChainTestListener.log(violation);
+		}
+		if (performance.isSoftMode() && testResult.isSuccess()) {
+			testResult.setStatus(ITestResult.FAILURE);
+			testResult.setThrowable(new AssertionError(text));
+		}
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		PagePerformance performance = PagePerformance.getInstance();
+		if (!performance.isEnabled()) {
+			return;
+		}
+		log.info("{}", performance.report());
+		performance.writeSummary(Paths.get(SUMMARY_FILE));
+	}
+
+}
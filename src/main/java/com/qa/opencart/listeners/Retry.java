@@ -1,26 +1,71 @@
 package com.qa.opencart.listeners;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestResult;
 
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.listeners.FailureClassifier.FailureType;
+import com.qa.opencart.utils.FrameworkLogger;
+
+/**
+ * Retries a failed test only when a retry can help (see FailureClassifier):
+ * infrastructure failures run again in a fresh browser session, flaky timing
+ * failures in the same one, assertion failures are not retried.
+ *
+ * retry.max is the max retries of one test, retry.budget the share of the
+ * suite's test methods that may be retried in total (0.1 = one retry per ten
+ * tests, at least one), so retries can not double the run time.
+ */
 public class Retry implements IRetryAnalyzer {
 
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(Retry.class);
+
+	private static final Map<String, AtomicInteger> budgetBySuite = new ConcurrentHashMap<String, AtomicInteger>();
+
 	private int count = 0;
-	private static int maxTry = 3;
+	private static final int maxTry = ConfigService.getInstance().getInt("retry.max", 2);
+	private static final double budgetRatio = Double
+			.parseDouble(ConfigService.getInstance().get("retry.budget", "0.1"));
 
 	@Override
 	public boolean retry(ITestResult iTestResult) {
-		if (!iTestResult.isSuccess()) { // Check if test not succeed
-			if (count < maxTry) { // Check if maxtry count is reached
-				count++; // Increase the maxTry count by 1
-				iTestResult.setStatus(ITestResult.FAILURE); // Mark test as failed
-				return true; // Tells TestNG to re-run the test
-			} else {
-				iTestResult.setStatus(ITestResult.FAILURE); // If maxCount reached,test marked as failed
-			}
-		} else {
+		if (iTestResult.isSuccess()) {
 			iTestResult.setStatus(ITestResult.SUCCESS); // If test passes, TestNG marks it as passed
+			return false;
+		}
+		iTestResult.setStatus(ITestResult.FAILURE); // Mark test as failed
+
+		String testName = iTestResult.getMethod().getQualifiedName();
+		FailureType type = FailureClassifier.classify(iTestResult.getThrowable());
+		if (type == FailureType.DETERMINISTIC) {
+			log.info("{} failed deterministically, not retried: {}", testName, String.valueOf(iTestResult.getThrowable()));
+			return false;
 		}
-		return false;
+		if (count >= maxTry) { // Check if maxtry count is reached
+			return false;
+		}
+		if (!takeFromBudget(iTestResult)) {
+			log.warn("retry budget of the suite is used up, {} ({}) not retried", testName, type);
+			return false;
+		}
+		count++;
+		log.step("retry {} of {} after {} failure: {}", count, testName, type, String.valueOf(iTestResult.getThrowable()));
+		if (type == FailureType.INFRASTRUCTURE) {
+			// BaseTest rebuilds its pages on the new session before the retry
+			DriverFactory.recycleDriver();
+		}
+		return true;
+	}
+
+	private static boolean takeFromBudget(ITestResult iTestResult) {
+		int suiteMethods = iTestResult.getTestContext().getSuite().getAllMethods().size();
+		AtomicInteger left = budgetBySuite.computeIfAbsent(iTestResult.getTestContext().getSuite().getName(),
+				suite -> new AtomicInteger(Math.max(1, (int) Math.ceil(suiteMethods * budgetRatio))));
+		return left.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0;
 	}
 }
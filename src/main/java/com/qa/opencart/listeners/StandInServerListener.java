@@ -0,0 +1,63 @@
+package com.qa.opencart.listeners;
+
+import java.io.IOException;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.standin.StandInServer;
+import com.qa.opencart.utils.FrameworkLogger;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * Starts the OpenCart stand-in for the suite when the configured url points to
+ * localhost (-Denv=local), before the browsers are warmed up and sent there.
+ * Must be registered before BrowserWarmupListener.
+ *
+ * The stand-in stops with the suite, so it is never shared with another suite:
+ * when its port is taken by another JVM the suite fails fast. With
+ * -Dstandin.managed=true the suite uses a stand-in run by someone else and
+ * starts none: the shard runner passes it to its local shards, or give it when
+ * StandInServer.main runs the stand-in.
+ */
+public class StandInServerListener implements ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(StandInServerListener.class);
+
+	private StandInServer server;
+
+	@Override
+	public void onStart(ISuite suite) {
+		if (Boolean.getBoolean("standin.managed")) {
+			log.info("OpenCart stand-in is run by the shard runner");
+			return;
+		}
+		StandInServer standIn = StandInServer.forConfig(ConfigService.getInstance());
+		if (standIn == null) {
+			return;
+		}
+		boolean started;
+		try {
+			started = standIn.start();
+		} catch (IOException e) {
+			throw new FrameworkException("===STAND-IN COULD NOT BE STARTED=== : " + e);
+		}
+		if (!started) {
+			// a stand-in of another suite would stop under this one when that suite ends
+			throw new FrameworkException("===STAND-IN PORT IN USE=== : " + standIn.getPort()
+					+ ", run shards with the ShardRunner, or -Dstandin.managed=true for a stand-in of StandInServer.main");
+		}
+		server = standIn;
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		if (server != null) {
+			server.stop();
+			server = null;
+		}
+	}
+
+}
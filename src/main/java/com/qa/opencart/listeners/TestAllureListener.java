@@ -1,25 +1,33 @@
 package com.qa.opencart.listeners;
 
+import java.util.List;
+
+import io.qameta.allure.Allure;
 import io.qameta.allure.Attachment;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
+import com.aventstack.chaintest.plugins.ChainTestListener;
 import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.utils.ElementCache;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.ScreenshotService;
+
+public class TestAllureListener implements ITestListener, IInvokedMethodListener {
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(TestAllureListener.class);
 
-public class TestAllureListener implements ITestListener{
 	private static String getTestMethodName(ITestResult iTestResult) {
 		return iTestResult.getMethod().getConstructorOrMethod().getName();
 	}
 
 	
-	// Text attachments for Allure
-	@Attachment(value = "Page screenshot", type = "image/png")
-	public byte[] saveScreenshotPNG(WebDriver driver) {
-		return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+	private static void printElementCacheStats(ITestResult iTestResult) {
+		log.info("element lookups saved by the handle cache in {}: {} (stale handles re-resolved: {})",
+				getTestMethodName(iTestResult), ElementCache.getSavedLookups(), ElementCache.getStaleReResolved());
 	}
 
 	// Text attachments for Allure
@@ -36,34 +44,35 @@ public class TestAllureListener implements ITestListener{
 
 	@Override
 	public void onStart(ITestContext iTestContext) {
-		System.out.println("I am in onStart method " + iTestContext.getName());
+		log.info("I am in onStart method {}", iTestContext.getName());
 		//iTestContext.setAttribute("WebDriver", BasePage.getDriver());
 	}
 
 	@Override
 	public void onFinish(ITestContext iTestContext) {
-		System.out.println("I am in onFinish method " + iTestContext.getName());
+		log.info("I am in onFinish method {}", iTestContext.getName());
 	}
 
 	@Override
 	public void onTestStart(ITestResult iTestResult) {
-		System.out.println("I am in onTestStart method " + getTestMethodName(iTestResult) + " start");
+		log.info("I am in onTestStart method {} start", getTestMethodName(iTestResult));
+		ElementCache.resetCounters();
 	}
 
 	@Override
 	public void onTestSuccess(ITestResult iTestResult) {
-		System.out.println("I am in onTestSuccess method " + getTestMethodName(iTestResult) + " succeed");
+		log.info("I am in onTestSuccess method {} succeed", getTestMethodName(iTestResult));
+		printElementCacheStats(iTestResult);
 	}
 
 	@Override
 	public void onTestFailure(ITestResult iTestResult) {
-		System.out.println("I am in onTestFailure method " + getTestMethodName(iTestResult) + " failed");
-		Object testClass = iTestResult.getInstance();
-		//WebDriver driver = BasePage.getDriver();
-		// Allure ScreenShotRobot and SaveTestLog
+		log.info("I am in onTestFailure method {} failed", getTestMethodName(iTestResult));
+		printElementCacheStats(iTestResult);
+		// one capture shared with the ChainTest embed in BaseTest, encoded off the test thread
 		if (DriverFactory.getDriver() instanceof WebDriver) {
-			System.out.println("Screenshot captured for test case:" + getTestMethodName(iTestResult));
-			saveScreenshotPNG(DriverFactory.getDriver());
+			log.info("Screenshot captured for test case:{}", getTestMethodName(iTestResult));
+			ScreenshotService.getInstance().attachToAllure(iTestResult, "Page screenshot");
 		}
 		// Save a log on allure.
 		saveTextLog(getTestMethodName(iTestResult) + " failed and screenshot taken!");		
@@ -71,12 +80,32 @@ public class TestAllureListener implements ITestListener{
 
 	@Override
 	public void onTestSkipped(ITestResult iTestResult) {
-		System.out.println("I am in onTestSkipped method " + getTestMethodName(iTestResult) + " skipped");
+		log.info("I am in onTestSkipped method {} skipped", getTestMethodName(iTestResult));
 	}
 
 	@Override
 	public void onTestFailedButWithinSuccessPercentage(ITestResult iTestResult) {
-		System.out.println("Test failed but it is in defined success ratio " + getTestMethodName(iTestResult));
+		log.info("Test failed but it is in defined success ratio {}", getTestMethodName(iTestResult));
+	}
+
+	/**
+	 * hands the report steps logged while the test ran to ChainTest and Allure in
+	 * one batch. Runs on the test thread, ChainTest picks its log lines up after
+	 * the @AfterMethod.
+	 */
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod()) {
+			return;
+		}
+		List<String> steps = FrameworkLogger.drainReportSteps();
+		if (steps.isEmpty()) {
+			return;
+		}
+		for (String step : steps) {
+			ChainTestListener.log(step);
+		}
+		Allure.addAttachment("Test steps", "text/plain", String.join(System.lineSeparator(), steps));
 	}
 
 }
@@ -0,0 +1,59 @@
+package com.qa.opencart.listeners;
+
+import java.io.IOException;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.internal.TestResult;
+
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.TestHistory;
+
+/**
+ * Records the duration and result of every test (and data provider row) in
+ * TestHistory and saves it when the suite is done. The shard runner and the
+ * fail fast ordering read it on the next run.
+ */
+public class TestHistoryListener implements ITestListener, ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(TestHistoryListener.class);
+
+	@Override
+	public void onTestSuccess(ITestResult result) {
+		record(result, false);
+	}
+
+	@Override
+	public void onTestFailure(ITestResult result) {
+		record(result, true);
+	}
+
+	@Override
+	public void onTestSkipped(ITestResult result) {
+		// a failed attempt that was retried is reported as skipped
+		if (result.wasRetried()) {
+			record(result, true);
+		}
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		try {
+			TestHistory.getInstance().save();
+		} catch (IOException e) {
+			log.warn("test history could not be saved: {}", e.toString());
+		}
+	}
+
+	private static void record(ITestResult result, boolean failed) {
+		int row = -1;
+		if (result.getMethod().isDataDriven() && result instanceof TestResult) {
+			row = ((TestResult) result).getParameterIndex();
+		}
+		TestHistory.getInstance().record(TestHistory.methodKey(result.getMethod()), row,
+				result.getEndMillis() - result.getStartMillis(), failed);
+	}
+
+}
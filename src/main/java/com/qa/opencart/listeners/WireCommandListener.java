@@ -0,0 +1,133 @@
+package com.qa.opencart.listeners;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.json.Json;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+import org.testng.internal.TestResult;
+
+import com.aventstack.chaintest.plugins.ChainTestListener;
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.factory.WireCommandRecorder;
+import com.qa.opencart.factory.WireCommandRecorder.TestCommands;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.LatencyHistogram;
+import com.qa.opencart.utils.TestHistory;
+
+import io.qameta.allure.Allure;
+
+/**
+ * Driver round trips per test: the commands WireCommandRecorder saw while a
+ * test method ran are attached to the Allure and ChainTest results and
+ * written to target/wire-commands.json at the end of the suite.
+ *
+ * wire.budget is the max number of commands a test may send (0, the default,
+ * is no budget), wire.budget.&lt;TestClass&gt;.&lt;method&gt; overrides it for
+ * one test. Over budget the test is failed with wire.budget.mode=fail, only
+ * logged with warn (default).
+ */
+public class WireCommandListener implements IInvokedMethodListener, ISuiteListener {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(WireCommandListener.class);
+
+	private static final String SUMMARY_FILE = "./target/wire-commands.json";
+
+	private final List<Map<String, Object>> tests = new ArrayList<Map<String, Object>>();
+
+	@Override
+	public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (method.isTestMethod()) {
+			WireCommandRecorder.getInstance().begin();
+		}
+	}
+
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod()) {
+			return;
+		}
+		TestCommands commands = WireCommandRecorder.getInstance().end();
+		if (commands == null) {
+			return;
+		}
+		String testName = testResult.getMethod().getRealClass().getSimpleName() + "." + testResult.getMethod().getMethodName();
+		ConfigService config = ConfigService.getInstance();
+		int budget = config.getInt("wire.budget." + testName, config.getInt("wire.budget", 0));
+		boolean overBudget = budget > 0 && commands.getCount() > budget;
+
+		String summary = testName + ": " + commands;
+		ChainTestListener.log(String.format("%d driver commands, %.1fms%s", commands.getCount(), commands.getMillis(),
+				budget > 0 ? " (budget " + budget + ")" : ""));
+		Allure.addAttachment("Driver commands", "text/plain", summary);
+		log.debug("{}", summary);
+
+		if (overBudget) {
+			String message = String.format("===DRIVER COMMAND BUDGET EXCEEDED=== : %s sent %d commands, budget is %d",
+					testName, commands.getCount(), budget);
+			if ("fail".equalsIgnoreCase(config.get("wire.budget.mode", "warn")) && testResult.isSuccess()) {
+				testResult.setStatus(ITestResult.FAILURE);
+				testResult.setThrowable(new AssertionError(message));
+			} else {
+				log.warn("{}", message);
+			}
+		}
+
+		Map<String, Object> entry = new LinkedHashMap<String, Object>();
+		entry.put("test", TestHistory.methodKey(testResult.getMethod()));
+		if (testResult.getMethod().isDataDriven() && testResult instanceof TestResult) {
+			entry.put("row", ((TestResult) testResult).getParameterIndex());
+		}
+		entry.put("count", commands.getCount());
+		entry.put("millis", Math.round(commands.getMillis() * 100) / 100.0);
+		entry.put("budget", budget);
+		entry.put("overBudget", overBudget);
+		entry.put("commands", commands.toMap());
+		synchronized (tests) {
+			tests.add(entry);
+		}
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		Map<String, Object> totals = new LinkedHashMap<String, Object>();
+		StringBuilder report = new StringBuilder("===driver commands===").append(System.lineSeparator());
+		for (Map.Entry<String, LatencyHistogram> entry : WireCommandRecorder.getInstance().getRunTotals().entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			Map<String, Object> stats = new LinkedHashMap<String, Object>();
+			stats.put("count", histogram.getCount());
+			stats.put("millis", Math.round(histogram.getTotalMillis() * 100) / 100.0);
+			stats.put("p50", histogram.getPercentileMillis(50));
+			stats.put("p99", histogram.getPercentileMillis(99));
+			totals.put(entry.getKey(), stats);
+			report.append(String.format("%-28s %s", entry.getKey(), histogram)).append(System.lineSeparator());
+		}
+		log.info("{}", report);
+
+		Map<String, Object> summary = new LinkedHashMap<String, Object>();
+		summary.put("suite", suite.getName());
+		synchronized (tests) {
+			summary.put("tests", new ArrayList<Map<String, Object>>(tests));
+		}
+		summary.put("totals", totals);
+		Path file = Paths.get(SUMMARY_FILE);
+		try {
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, new Json().toJson(summary), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.warn("driver command summary could not be written to {} : {}", file, e.toString());
+		}
+	}
+
+}
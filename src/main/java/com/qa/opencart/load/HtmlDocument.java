@@ -0,0 +1,175 @@
+package com.qa.opencart.load;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough html reading for the load journeys: title, headings, forms with
+ * their fields and links by text, the way a browser would see them. Regex
+ * based, for the OpenCart markup, not a general purpose parser.
+ */
+public class HtmlDocument {
+
+	private static final Pattern TITLE = Pattern.compile("<title[^>]*>(.*?)</title>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+	private static final Pattern H1 = Pattern.compile("<h1[^>]*>(.*?)</h1>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+	private static final Pattern FORM = Pattern.compile("<form([^>]*)>(.*?)</form>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+	private static final Pattern FIELD = Pattern.compile("<(input|select|textarea)([^>]*)>", Pattern.CASE_INSENSITIVE);
+	private static final Pattern LINK = Pattern.compile("<a([^>]*)>(.*?)</a>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+	private static final Pattern TAG = Pattern.compile("<[^>]+>");
+	private static final Pattern ATTRIBUTE = Pattern.compile("([a-zA-Z-]+)\\s*=\\s*(\"([^\"]*)\"|'([^']*)')");
+
+	private final URI uri;
+	private final int status;
+	private final String html;
+
+	/**
+	 * a form as the browser would submit it: resolved action, method and the
+	 * named fields with their current values
+	 */
+	public static class Form {
+		private final URI action;
+		private final String method;
+		private final Map<String, String> fields;
+
+		Form(URI action, String method, Map<String, String> fields) {
+			this.action = action;
+			this.method = method;
+			this.fields = fields;
+		}
+
+		public URI getAction() {
+			return action;
+		}
+
+		public boolean isPost() {
+			return "post".equalsIgnoreCase(method);
+		}
+
+		/**
+		 * a copy of the fields, to fill in before submitting
+		 */
+		public Map<String, String> getFields() {
+			return new LinkedHashMap<String, String>(fields);
+		}
+
+		public boolean hasField(String name) {
+			return fields.containsKey(name);
+		}
+	}
+
+	public HtmlDocument(URI uri, int status, String html) {
+		this.uri = uri;
+		this.status = status;
+		this.html = html == null ? "" : html;
+	}
+
+	public URI getUri() {
+		return uri;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public String getHtml() {
+		return html;
+	}
+
+	public String getTitle() {
+		Matcher m = TITLE.matcher(html);
+		return m.find() ? text(m.group(1)) : "";
+	}
+
+	public String getH1() {
+		Matcher m = H1.matcher(html);
+		return m.find() ? text(m.group(1)) : "";
+	}
+
+	public List<Form> getForms() {
+		List<Form> forms = new ArrayList<Form>();
+		Matcher m = FORM.matcher(html);
+		while (m.find()) {
+			Map<String, String> attrs = attributes(m.group(1));
+			Map<String, String> fields = new LinkedHashMap<String, String>();
+			Matcher f = FIELD.matcher(m.group(2));
+			while (f.find()) {
+				Map<String, String> field = attributes(f.group(2));
+				String name = field.get("name");
+				String type = field.getOrDefault("type", "text").toLowerCase();
+				if (name == null || type.equals("submit") || type.equals("button")
+						|| ((type.equals("checkbox") || type.equals("radio")) && !field.containsKey("checked"))) {
+					continue;
+				}
+				fields.put(name, field.getOrDefault("value", ""));
+			}
+			String action = attrs.getOrDefault("action", "");
+			forms.add(new Form(action.isEmpty() ? uri : resolve(action), attrs.getOrDefault("method", "get"), fields));
+		}
+		return forms;
+	}
+
+	/**
+	 * @return the first form with a field of that name, null if none
+	 */
+	public Form getFormWithField(String fieldName) {
+		for (Form form : getForms()) {
+			if (form.hasField(fieldName)) {
+				return form;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the target of the first link whose visible text is the given text
+	 *         (By.linkText), null if none
+	 */
+	public URI getLink(String linkText) {
+		Matcher m = LINK.matcher(html);
+		while (m.find()) {
+			String href = attributes(m.group(1)).get("href");
+			if (href != null && text(m.group(2)).equals(linkText)) {
+				return resolve(href);
+			}
+		}
+		return null;
+	}
+
+	public boolean contains(String text) {
+		return html.contains(text);
+	}
+
+	public URI resolve(String href) {
+		return uri.resolve(unescape(href).replace(" ", "%20"));
+	}
+
+	private static Map<String, String> attributes(String tag) {
+		Map<String, String> attrs = new LinkedHashMap<String, String>();
+		Matcher m = ATTRIBUTE.matcher(tag);
+		while (m.find()) {
+			attrs.put(m.group(1).toLowerCase(), unescape(m.group(3) != null ? m.group(3) : m.group(4)));
+		}
+		// boolean attributes like checked
+		for (String word : ATTRIBUTE.matcher(tag).replaceAll(" ").trim().split("\\s+")) {
+			if (word.matches("[a-zA-Z-]+") && !attrs.containsKey(word.toLowerCase())) {
+				attrs.put(word.toLowerCase(), "");
+			}
+		}
+		return attrs;
+	}
+
+	private static String text(String html) {
+		return unescape(TAG.matcher(html).replaceAll("")).replaceAll("\\s+", " ").trim();
+	}
+
+	private static String unescape(String text) {
+		return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'")
+				.replace("&nbsp;", " ").replace("&amp;", "&");
+	}
+
+}
@@ -0,0 +1,263 @@
+package com.qa.opencart.load;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.standin.StandInServer;
+import com.qa.opencart.utils.FrameworkLogger;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * Puts load on the configured store (-Denv, the local stand-in as well) with
+ * the shop journey of the UI suite played as http by virtual users (see
+ * ShopJourney), no browsers.
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; com.qa.opencart.load.LoadRunner
+ *     [--model closed|open] [--users 50] [--rate 20] [--arrivals poisson|constant]
+ *     [--duration 60] [--ramp-up 10] [--think-millis 0] [--max-users 10000]
+ *     [--timeout-seconds 30] [--search macbook] [--product "MacBook Pro"]
+ *     [--max-error-rate 0.01] [--report ./target/load-report.json]
+ * </pre>
+ *
+ * or mvn test-compile exec:java -Pload -Denv=local -Dload.users=2000
+ *
+ * <ul>
+ * <li>closed: --users virtual users, started evenly over --ramp-up seconds, each
+ * runs the journey again and again (a new session every time) until
+ * --duration is over</li>
+ * <li>open: new users arrive at --rate per second (poisson or constant gaps)
+ * whatever the response times are, each runs the journey once; arrivals while
+ * --max-users are busy are dropped and counted</li>
+ * </ul>
+ *
+ * Users run on virtual threads when the JVM has them (21+), on platform
+ * threads otherwise. Exits 1 when more than --max-error-rate of the journeys
+ * failed.
+ */
+public class LoadRunner {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(LoadRunner.class);
+
+	private static final long PROGRESS_MILLIS = 10_000;
+
+	private final Map<String, String> options;
+	private final String model;
+	private final int users;
+	private final double rate;
+	private final boolean poisson;
+	private final long durationNanos;
+	private final long rampUpNanos;
+	private final int maxUsers;
+	private final Duration timeout;
+	private final double maxErrorRate;
+
+	private final ShopJourney journey;
+	private final LoadStats stats = new LoadStats(ShopJourney.STEPS);
+	private final AtomicInteger activeUsers = new AtomicInteger();
+	private HttpClient client;
+
+	private LoadRunner(Map<String, String> options, ConfigService config) {
+		this.options = options;
+		model = options.getOrDefault("model", "closed");
+		if (!"closed".equals(model) && !"open".equals(model)) {
+			throw new FrameworkException("===INVALID LOAD MODEL=== : " + model);
+		}
+		users = Integer.parseInt(options.getOrDefault("users", "10"));
+		rate = Double.parseDouble(options.getOrDefault("rate", "10"));
+		poisson = !"constant".equals(options.getOrDefault("arrivals", "poisson"));
+		durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "60")));
+		rampUpNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("ramp-up", "0")));
+		maxUsers = Integer.parseInt(options.getOrDefault("max-users", "10000"));
+		timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "30")));
+		maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "0.01"));
+		if (users <= 0 || rate <= 0 || maxUsers <= 0) {
+			throw new FrameworkException("===INVALID LOAD SETTINGS=== : " + options);
+		}
+		journey = new ShopJourney(URI.create(config.getUrl()), config.get("username"), config.get("password"),
+				options.getOrDefault("search", "macbook"), options.getOrDefault("product", "MacBook Pro"),
+				Long.parseLong(options.getOrDefault("think-millis", "0")));
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<String, String>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--") || i + 1 == args.length) {
+				throw new FrameworkException("===INVALID LOAD RUNNER ARGUMENT=== : " + args[i]);
+			}
+			options.put(args[i].substring(2), args[++i]);
+		}
+		ConfigService config = ConfigService.getInstance();
+		StandInServer standIn = StandInServer.forConfig(config);
+		if (standIn != null && !startStandIn(standIn)) {
+			standIn = null;
+		}
+		int exitCode;
+		try {
+			exitCode = new LoadRunner(options, config).run();
+		} finally {
+			if (standIn != null) {
+				standIn.stop();
+			}
+		}
+		System.exit(exitCode);
+	}
+
+	private static boolean startStandIn(StandInServer standIn) {
+		try {
+			return standIn.start();
+		} catch (IOException e) {
+			log.error("OpenCart stand-in could not be started", e);
+			return false;
+		}
+	}
+
+	/**
+	 * @return 0 when the journey error rate stayed within --max-error-rate
+	 */
+	public int run() throws InterruptedException {
+		ExecutorService executor = newUserExecutor();
+		// one client for all users: connections are pooled, every user has its own cookies
+		client = HttpClient.newBuilder().connectTimeout(timeout).followRedirects(HttpClient.Redirect.NEVER).build();
+		log.info("{} model load on {} for {} s", model, options, TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+
+		long start = System.nanoTime();
+		long deadline = start + durationNanos;
+		if ("closed".equals(model)) {
+			for (int i = 0; i < users; i++) {
+				long startAt = start + rampUpNanos * i / users;
+				executor.execute(() -> closedUser(startAt, deadline));
+			}
+			awaitDeadline(deadline);
+		} else {
+			arrivals(executor, start, deadline);
+		}
+		executor.shutdown();
+		if (!executor.awaitTermination(timeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+			log.warn("{} virtual user(s) still running after the run, abandoned", activeUsers.get());
+			executor.shutdownNow();
+		}
+
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+		log.info("{}", stats.report(elapsedSeconds));
+		Map<String, Object> settings = new LinkedHashMap<String, Object>(options);
+		settings.put("model", model);
+		settings.put("url", ConfigService.getInstance().getUrl());
+		stats.writeSummary(Paths.get(options.getOrDefault("report", "./target/load-report.json")), settings,
+				elapsedSeconds);
+		if (stats.getJourneys() == 0 || stats.getErrorRate() > maxErrorRate) {
+			log.warn("journey error rate {} is above {}", stats.getErrorRate(), maxErrorRate);
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * a closed model user: waits for its ramp-up slot, then one journey after
+	 * the other until the deadline
+	 */
+	private void closedUser(long startAt, long deadline) {
+		activeUsers.incrementAndGet();
+		try {
+			sleepUntil(startAt);
+			while (System.nanoTime() < deadline) {
+				runJourney();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			activeUsers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * the open model scheduler: starts a one journey user at every arrival,
+	 * independent of how long the running users take
+	 */
+	private void arrivals(ExecutorService executor, long start, long deadline) throws InterruptedException {
+		long next = start;
+		long lastProgress = start;
+		while (next < deadline) {
+			sleepUntil(next);
+			if (activeUsers.incrementAndGet() > maxUsers) {
+				activeUsers.decrementAndGet();
+				stats.arrivalDropped();
+			} else {
+				executor.execute(() -> {
+					try {
+						runJourney();
+					} finally {
+						activeUsers.decrementAndGet();
+					}
+				});
+			}
+			double gapSeconds = poisson ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rate : 1 / rate;
+			next += (long) (gapSeconds * 1e9);
+			if (System.nanoTime() - lastProgress > TimeUnit.MILLISECONDS.toNanos(PROGRESS_MILLIS)) {
+				lastProgress = System.nanoTime();
+				progress(start);
+			}
+		}
+	}
+
+	private void runJourney() {
+		VirtualUser user = new VirtualUser(client, timeout);
+		stats.journeyDone(journey.run(user, stats));
+	}
+
+	private void awaitDeadline(long deadline) throws InterruptedException {
+		long start = System.nanoTime();
+		while (System.nanoTime() < deadline) {
+			Thread.sleep(Math.min(PROGRESS_MILLIS, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()) + 1));
+			progress(start);
+		}
+	}
+
+	private void progress(long start) {
+		log.info("{} s: {} active users, {} journeys, {} failed, {} dropped",
+				TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), activeUsers.get(), stats.getJourneys(),
+				stats.getFailedJourneys(), stats.getDroppedArrivals());
+	}
+
+	private static void sleepUntil(long nanoTime) throws InterruptedException {
+		long wait = nanoTime - System.nanoTime();
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	/**
+	 * a virtual thread per user on 21+, looked up by reflection as the project
+	 * builds for 17; a cached platform thread pool otherwise
+	 */
+	private static ExecutorService newUserExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			log.info("virtual users run on virtual threads");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			log.warn("no virtual threads in java {}, virtual users run on platform threads",
+					Runtime.version().feature());
+			AtomicInteger count = new AtomicInteger();
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "load-user-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+}
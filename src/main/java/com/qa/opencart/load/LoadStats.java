@@ -0,0 +1,173 @@
+package com.qa.opencart.load;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.json.Json;
+
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.LatencyHistogram;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * Latency of every journey step in a LatencyHistogram, errors per step and
+ * message, and the journey counters of a load run. Safe to share between all
+ * virtual users.
+ */
+public class LoadStats {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(LoadStats.class);
+
+	// distinct error messages kept per step
+	private static final int MAX_ERROR_KINDS = 20;
+
+	private final Map<String, StepStats> steps = new LinkedHashMap<String, StepStats>();
+	private final AtomicLong journeys = new AtomicLong();
+	private final AtomicLong failedJourneys = new AtomicLong();
+	private final AtomicLong droppedArrivals = new AtomicLong();
+
+	public static class StepStats {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final AtomicLong errors = new AtomicLong();
+		private final Map<String, AtomicLong> errorsByMessage = new ConcurrentHashMap<String, AtomicLong>();
+
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+	}
+
+	/**
+	 * @param stepNames the steps in journey order, the order of the report
+	 */
+	public LoadStats(List<String> stepNames) {
+		for (String name : stepNames) {
+			steps.put(name, new StepStats());
+		}
+	}
+
+	/**
+	 * @param error null when the step succeeded
+	 */
+	public void record(String step, long nanos, Throwable error) {
+		StepStats stats = steps.get(step);
+		stats.latency.record(nanos);
+		if (error != null) {
+			stats.errors.incrementAndGet();
+			// unexpected exceptions keep their class name
+			String message = error instanceof FrameworkException ? error.getMessage() : error.toString();
+			if (stats.errorsByMessage.size() < MAX_ERROR_KINDS || stats.errorsByMessage.containsKey(message)) {
+				stats.errorsByMessage.computeIfAbsent(message, m -> new AtomicLong()).incrementAndGet();
+			}
+		}
+	}
+
+	public void journeyDone(boolean passed) {
+		journeys.incrementAndGet();
+		if (!passed) {
+			failedJourneys.incrementAndGet();
+		}
+	}
+
+	/**
+	 * an open model arrival that was not started because max users were busy
+	 */
+	public void arrivalDropped() {
+		droppedArrivals.incrementAndGet();
+	}
+
+	public long getJourneys() {
+		return journeys.get();
+	}
+
+	public long getFailedJourneys() {
+		return failedJourneys.get();
+	}
+
+	public long getDroppedArrivals() {
+		return droppedArrivals.get();
+	}
+
+	public double getErrorRate() {
+		long total = journeys.get();
+		return total == 0 ? 0 : (double) failedJourneys.get() / total;
+	}
+
+	/**
+	 * one line per step: count, errors, throughput and p50/p90/p99/max in ms
+	 */
+	public String report(double elapsedSeconds) {
+		String nl = System.lineSeparator();
+		StringBuilder sb = new StringBuilder("===load results===").append(nl);
+		sb.append(String.format("journeys=%d failed=%d dropped=%d in %.1fs (%.1f journeys/s)", journeys.get(),
+				failedJourneys.get(), droppedArrivals.get(), elapsedSeconds, journeys.get() / Math.max(0.001, elapsedSeconds)))
+				.append(nl);
+		sb.append(String.format("%-34s %8s %7s %8s %9s %9s %9s %9s", "step", "count", "errors", "req/s", "p50", "p90",
+				"p99", "max")).append(nl);
+		for (Map.Entry<String, StepStats> entry : steps.entrySet()) {
+			LatencyHistogram h = entry.getValue().latency;
+			sb.append(String.format("%-34s %8d %7d %8.1f %7.1fms %7.1fms %7.1fms %7.1fms", entry.getKey(), h.getCount(),
+					entry.getValue().errors.get(), h.getCount() / Math.max(0.001, elapsedSeconds), h.getPercentileMillis(50),
+					h.getPercentileMillis(90), h.getPercentileMillis(99), h.getMaxNanos() / 1_000_000.0)).append(nl);
+			for (Map.Entry<String, AtomicLong> error : entry.getValue().errorsByMessage.entrySet()) {
+				sb.append(String.format("    %6d x %s", error.getValue().get(), error.getKey())).append(nl);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * json summary: the run settings, journey counters and per step latency
+	 * percentiles (ms) and errors
+	 */
+	public void writeSummary(Path file, Map<String, Object> settings, double elapsedSeconds) {
+		Map<String, Object> summary = new LinkedHashMap<String, Object>();
+		summary.put("settings", settings);
+		summary.put("elapsedSeconds", Math.round(elapsedSeconds * 10) / 10.0);
+		summary.put("journeys", journeys.get());
+		summary.put("failedJourneys", failedJourneys.get());
+		summary.put("droppedArrivals", droppedArrivals.get());
+		Map<String, Object> stepMap = new LinkedHashMap<String, Object>();
+		for (Map.Entry<String, StepStats> entry : steps.entrySet()) {
+			LatencyHistogram h = entry.getValue().latency;
+			Map<String, Object> values = new LinkedHashMap<String, Object>();
+			values.put("count", h.getCount());
+			values.put("errors", entry.getValue().errors.get());
+			values.put("mean", round(h.getMeanMillis()));
+			values.put("p50", round(h.getPercentileMillis(50)));
+			values.put("p90", round(h.getPercentileMillis(90)));
+			values.put("p99", round(h.getPercentileMillis(99)));
+			values.put("max", round(h.getMaxNanos() / 1_000_000.0));
+			Map<String, Long> errors = new LinkedHashMap<String, Long>();
+			entry.getValue().errorsByMessage.forEach((message, count) -> errors.put(message, count.get()));
+			values.put("errorMessages", errors);
+			stepMap.put(entry.getKey(), values);
+		}
+		summary.put("steps", stepMap);
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Files.writeString(file, new Json().toJson(summary), StandardCharsets.UTF_8);
+			log.info("load summary written to {}", file);
+		} catch (IOException e) {
+			log.warn("load summary could not be written to {} : {}", file, e.toString());
+		}
+	}
+
+	private static double round(double millis) {
+		return Math.round(millis * 100) / 100.0;
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.qa.opencart.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import com.qa.opencart.constants.AppConstants;
+import com.qa.opencart.load.HtmlDocument.Form;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * The UI journey of the functional suite as plain http, step for step with the
+ * page object methods: LoginPage (open, doLogin), AccountsPage.doSearch,
+ * SearchResultsPage.selectProduct, landing on the ProductInfoPage. Every step
+ * checks what the page object would wait for, a step that fails ends the
+ * journey.
+ */
+public class ShopJourney {
+
+	public static final String OPEN_LOGIN = "LoginPage.open";
+	public static final String DO_LOGIN = "LoginPage.doLogin";
+	public static final String DO_SEARCH = "AccountsPage.doSearch";
+	public static final String SELECT_PRODUCT = "SearchResultsPage.selectProduct";
+
+	public static final List<String> STEPS = List.of(OPEN_LOGIN, DO_LOGIN, DO_SEARCH, SELECT_PRODUCT);
+
+	private final URI loginUrl;
+	private final String username;
+	private final String password;
+	private final String searchKey;
+	private final String productName;
+	private final long thinkMillis;
+
+	/**
+	 * @param thinkMillis mean pause between two steps (uniform 0.5x..1.5x), 0
+	 *                    for none
+	 */
+	public ShopJourney(URI loginUrl, String username, String password, String searchKey, String productName,
+			long thinkMillis) {
+		this.loginUrl = loginUrl;
+		this.username = username;
+		this.password = password;
+		this.searchKey = searchKey;
+		this.productName = productName;
+		this.thinkMillis = thinkMillis;
+	}
+
+	/**
+	 * runs the journey once for the user, every step is recorded in the stats
+	 * 
+	 * @return true when all the steps passed
+	 */
+	public boolean run(VirtualUser user, LoadStats stats) {
+		try {
+			step(stats, OPEN_LOGIN, () -> {
+				HtmlDocument page = user.open(loginUrl);
+				expect(page.getFormWithField("password") != null, "no login form", page);
+				return page;
+			});
+			think();
+			step(stats, DO_LOGIN, () -> {
+				Form form = user.getPage().getFormWithField("password");
+				HtmlDocument page = user.submit(form, Map.of("email", username, "password", password));
+				expect(page.getTitle().equals(AppConstants.HOME_PAGE_TITLE), "not logged in", page);
+				return page;
+			});
+			think();
+			step(stats, DO_SEARCH, () -> {
+				HtmlDocument page = search(user);
+				expect(page.getLink(productName) != null, "no search result " + productName, page);
+				return page;
+			});
+			think();
+			step(stats, SELECT_PRODUCT, () -> {
+				HtmlDocument page = user.followLink(productName);
+				expect(page.getH1().equals(productName), "not the product page of " + productName, page);
+				return page;
+			});
+			return true;
+		} catch (RuntimeException e) {
+			// already recorded by the failed step
+			return false;
+		}
+	}
+
+	/**
+	 * the header search form when the page has one, else the search url the
+	 * store's search button script opens
+	 */
+	private HtmlDocument search(VirtualUser user) {
+		Form form = user.getPage().getFormWithField("search");
+		if (form != null) {
+			return user.submit(form, Map.of("search", searchKey));
+		}
+		return user.open(user.getPage().resolve(
+				"index.php?route=product/search&search=" + URLEncoder.encode(searchKey, StandardCharsets.UTF_8)));
+	}
+
+	private static void step(LoadStats stats, String name, Supplier<HtmlDocument> step) {
+		long start = System.nanoTime();
+		try {
+			step.get();
+			stats.record(name, System.nanoTime() - start, null);
+		} catch (RuntimeException e) {
+			// also unexpected ones, e.g. an href URI.resolve rejects
+			stats.record(name, System.nanoTime() - start, e);
+			throw e;
+		}
+	}
+
+	private static void expect(boolean condition, String message, HtmlDocument page) {
+		if (!condition) {
+			throw new FrameworkException("===UNEXPECTED PAGE=== : " + message + " (" + page.getTitle() + ")");
+		}
+	}
+
+	private void think() {
+		if (thinkMillis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(thinkMillis / 2, thinkMillis * 3 / 2 + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FrameworkException("===VIRTUAL USER INTERRUPTED===");
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.qa.opencart.load;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import com.qa.opencart.load.HtmlDocument.Form;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * One simulated shopper: its own cookie jar (so its own OpenCart session) on
+ * the shared HttpClient, and the page it is on. Moves like a browser does:
+ * form posts, redirects followed by hand so every hop's cookies are kept, and
+ * links followed by their text.
+ */
+public class VirtualUser {
+
+	private static final int MAX_REDIRECTS = 5;
+	private static final String USER_AGENT = "OpenCartIT-load";
+
+	private final HttpClient client;
+	private final Duration timeout;
+	private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+	private HtmlDocument page;
+
+	public VirtualUser(HttpClient client, Duration timeout) {
+		this.client = client;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * the page the user is on, null before the first request
+	 */
+	public HtmlDocument getPage() {
+		return page;
+	}
+
+	public HtmlDocument open(URI uri) {
+		return request("GET", uri, null);
+	}
+
+	/**
+	 * submits the form with the given values on top of its own field values
+	 */
+	public HtmlDocument submit(Form form, Map<String, String> values) {
+		Map<String, String> fields = form.getFields();
+		fields.putAll(values);
+		StringJoiner body = new StringJoiner("&");
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			body.add(URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "="
+					+ URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8));
+		}
+		if (form.isPost()) {
+			return request("POST", form.getAction(), body.toString());
+		}
+		URI action = form.getAction();
+		String base = action.toString();
+		int query = base.indexOf('?');
+		return request("GET", URI.create((query < 0 ? base : base.substring(0, query)) + "?" + body), null);
+	}
+
+	/**
+	 * clicks the link with the given text on the current page (By.linkText)
+	 */
+	public HtmlDocument followLink(String linkText) {
+		URI target = page == null ? null : page.getLink(linkText);
+		if (target == null) {
+			throw new FrameworkException("===LINK NOT FOUND=== : " + linkText + " on " + (page == null ? "no page" : page.getUri()));
+		}
+		return request("GET", target, null);
+	}
+
+	private HtmlDocument request(String method, URI uri, String formBody) {
+		URI current = uri;
+		String currentMethod = method;
+		String currentBody = formBody;
+		for (int hop = 0; hop <= MAX_REDIRECTS; hop++) {
+			HttpRequest.Builder builder = HttpRequest.newBuilder(current).timeout(timeout).header("User-Agent", USER_AGENT);
+			List<String> cookieHeader = cookieHeader(current);
+			if (!cookieHeader.isEmpty()) {
+				builder.header("Cookie", String.join("; ", cookieHeader));
+			}
+			if ("POST".equals(currentMethod)) {
+				builder.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString(currentBody));
+			} else {
+				builder.GET();
+			}
+			HttpResponse<String> response = send(builder.build());
+			storeCookies(current, response);
+			int status = response.statusCode();
+			Optional<String> location = response.headers().firstValue("Location");
+			if (status >= 300 && status < 400 && location.isPresent()) {
+				current = current.resolve(location.get());
+				// 301/302/303 after a post: the browser follows with a GET
+				if (status != 307 && status != 308) {
+					currentMethod = "GET";
+					currentBody = null;
+				}
+				continue;
+			}
+			if (status >= 400) {
+				throw new FrameworkException("===HTTP " + status + "=== : " + currentMethod + " " + current);
+			}
+			page = new HtmlDocument(current, status, response.body());
+			return page;
+		}
+		throw new FrameworkException("===TOO MANY REDIRECTS=== : " + method + " " + uri);
+	}
+
+	private HttpResponse<String> send(HttpRequest request) {
+		try {
+			return client.send(request, HttpResponse.BodyHandlers.ofString());
+		} catch (IOException e) {
+			throw new FrameworkException("===REQUEST FAILED=== : " + request.method() + " " + request.uri() + " " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FrameworkException("===REQUEST INTERRUPTED=== : " + request.method() + " " + request.uri());
+		}
+	}
+
+	private List<String> cookieHeader(URI uri) {
+		try {
+			return cookies.get(uri, Map.of()).getOrDefault("Cookie", List.of());
+		} catch (IOException e) {
+			return List.of();
+		}
+	}
+
+	private void storeCookies(URI uri, HttpResponse<String> response) {
+		try {
+			cookies.put(uri, response.headers().map());
+		} catch (IOException e) {
+			// a cookie the jar can not parse is dropped, like a browser would
+		}
+	}
+
+}
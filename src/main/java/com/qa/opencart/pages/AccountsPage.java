@@ -4,56 +4,72 @@ import static com.qa.opencart.constants.AppConstants.DEFAULT_TIMEOUT;
 import static com.qa.opencart.constants.AppConstants.HOME_PAGE_FRACTION_URL;
 import static com.qa.opencart.constants.AppConstants.HOME_PAGE_TITLE;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
 
 import com.qa.opencart.utils.ElementUtil;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.PageConditions;
+import com.qa.opencart.utils.PageConditions.ConditionResult;
 
 public class AccountsPage {
 	private WebDriver driver;
 	private ElementUtil eleUtil;
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(AccountsPage.class);
 	
 	private final By headers = By.cssSelector("div#content > h2");
 	private final By search = By.name("search");
 	private final By searchIcon = By.cssSelector("div#search button");
 	
+	// title and url are checked together in one wait, tests read them back to back
+	private final PageConditions accPageConditions = new PageConditions()
+			.titleIs(HOME_PAGE_TITLE)
+			.urlContains(HOME_PAGE_FRACTION_URL);
+	private static final int TITLE_CHECK = 0;
+	private static final int URL_CHECK = 1;
+	private ConditionResult accPageState;
+	
 	public AccountsPage(WebDriver driver) {
 		this.driver = driver;
 		eleUtil = new ElementUtil(driver);
 	}
 
 	public String getAccPageTitle() {
-		String title = eleUtil.waitFotTitleIs(HOME_PAGE_TITLE, DEFAULT_TIMEOUT);
-		System.out.println("home page title: " + title);
+		ConditionResult state = getAccPageState();
+		String title = state.isPassed(TITLE_CHECK) ? state.getTitle() : null;
+		log.step("home page title: {}", title);
 		return title;
 	}
 
 	public String getAccPageURL() {
-		String url = eleUtil.waitForURLContains(HOME_PAGE_FRACTION_URL, DEFAULT_TIMEOUT);
-		System.out.println("home page url: " + url);
+		ConditionResult state = getAccPageState();
+		String url = state.isPassed(URL_CHECK) ? state.getUrl() : null;
+		log.step("home page url: {}", url);
 		return url;
 	}
 	
-	public List<String> getAccPageHeaders() {
-		List<WebElement> headerList = eleUtil.getElements(headers);
-		List<String> headerValList = new ArrayList<String>();
-		for(WebElement e: headerList) {
-			String text = e.getText();
-			headerValList.add(text);
+	private ConditionResult getAccPageState() {
+		if (accPageState == null) {
+			accPageState = eleUtil.waitForConditions(accPageConditions, DEFAULT_TIMEOUT);
 		}
-		System.out.println("Acc page headers: " + headerValList);
+		return accPageState;
+	}
+	
+	public List<String> getAccPageHeaders() {
+		List<String> headerValList = eleUtil.getElementsText(headers);
+		log.step("Acc page headers: {}", headerValList);
 		return headerValList;
 	}
 	
 	
 	public SearchResultsPage doSearch(String searchKey) {
-		System.out.println("search key: "+ searchKey);
+		log.step("search key: {}", searchKey);
+		accPageState = null;
 		eleUtil.doSendKeys(search, searchKey);
-		eleUtil.doClick(searchIcon);
+		eleUtil.capturePagePerformance(SearchResultsPage.class, () -> eleUtil.doClick(searchIcon));
 		return new SearchResultsPage(driver);
 	}
 }
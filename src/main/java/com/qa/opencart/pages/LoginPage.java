@@ -5,6 +5,9 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 
 import com.qa.opencart.utils.ElementUtil;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.PageConditions;
+import com.qa.opencart.utils.PageConditions.ConditionResult;
 
 import static com.qa.opencart.constants.AppConstants.*;
 
@@ -12,6 +15,8 @@ public class LoginPage {
 	private WebDriver driver;
 	private ElementUtil eleUtil;
 
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(LoginPage.class);
+
 	// 1. private By locators: OR
 	private final By email = By.id("input-email");
 	private final By password = By.id("input-password");
@@ -19,6 +24,13 @@ public class LoginPage {
 	private final By forgotPwdLink = By.linkText("Forgotten Password11");
 	private final By registerLink = By.linkText("Register");
 
+	// title and url are checked together in one wait, tests read them back to back
+	private final PageConditions loginPageConditions = new PageConditions()
+			.titleIs(LOGIN_PAGE_TITLE)
+			.urlContains(LOGIN_PAGE_FRACTION_URL);
+	private static final int TITLE_CHECK = 0;
+	private static final int URL_CHECK = 1;
+	private ConditionResult loginPageState;
 
 	// 2. public page constr...
 	public LoginPage(WebDriver driver) {
@@ -27,34 +39,54 @@ public class LoginPage {
 	}
 
 	// 3. public page actions/methods
+	/**
+	 * page performance of the login page the session was opened on, the
+	 * navigation was done by DriverFactory
+	 */
+	public LoginPage capturePagePerformance() {
+		eleUtil.capturePagePerformance(LoginPage.class);
+		return this;
+	}
+
 	public String getLoginPageTitle() {
-		String title = eleUtil.waitFotTitleIs(LOGIN_PAGE_TITLE, DEFAULT_TIMEOUT);
-		System.out.println("login page title: " + title);
+		ConditionResult state = getLoginPageState();
+		String title = state.isPassed(TITLE_CHECK) ? state.getTitle() : null;
+		log.step("login page title: {}", title);
 		return title;
 	}
 
 	public String getLoginPageURL() {
-		String url = eleUtil.waitForURLContains(LOGIN_PAGE_FRACTION_URL, DEFAULT_TIMEOUT);
-		System.out.println("login page url: " + url);
+		ConditionResult state = getLoginPageState();
+		String url = state.isPassed(URL_CHECK) ? state.getUrl() : null;
+		log.step("login page url: {}", url);
 		return url;
 	}
 
+	private ConditionResult getLoginPageState() {
+		if (loginPageState == null) {
+			loginPageState = eleUtil.waitForConditions(loginPageConditions, DEFAULT_TIMEOUT);
+		}
+		return loginPageState;
+	}
+
 	public boolean isForgotPwdLinkExist() {
 		return eleUtil.isElementDisplayed(forgotPwdLink);
 	}
 
 	public AccountsPage doLogin(String username, String pwd) {
-		System.out.println("user credentials: " + username + ":" + pwd);
+		log.step("login as: {}", username);
+		loginPageState = null;
 		eleUtil.waitForElementVisible(email, MEDIUM_DEFAULT_TIMEOUT).sendKeys(username);
 		eleUtil.doSendKeys(password, pwd);
-		eleUtil.doClick(loginBtn);
+		eleUtil.capturePagePerformance(AccountsPage.class, () -> eleUtil.doClick(loginBtn));
 		//after clicking on login button ---> landing on Accounts Page
 		//responsible to return the AccountsPage class object
 		return new AccountsPage(driver);
 	}
 
 	public RegisterPage navigateToRegisterPage() {
-		eleUtil.clickWhenReady(registerLink, DEFAULT_TIMEOUT);
+		loginPageState = null;
+		eleUtil.capturePagePerformance(RegisterPage.class, () -> eleUtil.clickWhenReady(registerLink, DEFAULT_TIMEOUT));
 		return new RegisterPage(driver);
 	}
 }
@@ -1,21 +1,23 @@
 package com.qa.opencart.pages;
 
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
 
 import com.qa.opencart.constants.AppConstants;
 import com.qa.opencart.utils.ElementUtil;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.PageExtractor;
 
 public class ProductInfoPage {
 
 	private WebDriver driver;
 	private ElementUtil eleUtil;
 
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(ProductInfoPage.class);
+
 	// 1. private By locators: OR
 	private final By productHeader = By.tagName("h1");
 	private final By productImages = By.cssSelector("ul.thumbnails img");
@@ -23,24 +25,41 @@ public class ProductInfoPage {
 	private final By productPriceData = By.xpath("(//div[@id='content']//ul[@class='list-unstyled'])[2]/li");
 
 	private Map<String, String> productMap;
+	
+	// all the product details are read in one go after the header is visible
+	private final PageExtractor productExtractor;
 
 	// 2. public page constr...
 	public ProductInfoPage(WebDriver driver) {
 		this.driver = driver;
 		eleUtil = new ElementUtil(driver);
+		productExtractor = new PageExtractor(driver)
+				.waitFor(productHeader, AppConstants.DEFAULT_TIMEOUT)
+				// the thumbnails load after the header, count them once all are visible
+				.waitForAllVisible(productImages, AppConstants.MEDIUM_DEFAULT_TIMEOUT)
+				.text("productheader", productHeader)
+				.count("productimages", productImages)
+				//	Brand: Apple
+				//	Product Code: Product 18
+				//	Reward Points: 800
+				//	Availability: Out Of Stock
+				.keyValues(productMetaData, ":")
+				//	$2,000.00
+				//	Ex Tax: $2,000.00
+				.textAt("productprice", productPriceData, 0)
+				.valueAt("extaxprice", productPriceData, 1, ":");
 	}
 	
 	
 	public String getProductHeader(){
-		String header = eleUtil.waitForElementVisible(productHeader, AppConstants.DEFAULT_TIMEOUT).getText();
-		System.out.println("product header: "+ header);
+		String header = productExtractor.extract().get("productheader");
+		log.step("product header: {}", header);
 		return header;
 	}
 	
 	public int getProductImagesCount() {
-		int imageCount = 
-				eleUtil.waitForAllElementsVisible(productImages, AppConstants.MEDIUM_DEFAULT_TIMEOUT).size();
-		System.out.println("Total number of images: " + imageCount);
+		int imageCount = Integer.parseInt(productExtractor.extract().get("productimages"));
+		log.step("Total number of images: {}", imageCount);
 		return imageCount;
 		
 	}
@@ -48,43 +67,12 @@ public class ProductInfoPage {
 	public Map<String, String> getProductDetailsMap() {
 		//productMap = new HashMap<String, String>();
 		//productMap = new LinkedHashMap<String, String>();
-		productMap = new TreeMap<String, String>();
-		
-		productMap.put("productheader", getProductHeader());
-		productMap.put("productimages", String.valueOf(getProductImagesCount()));
-		getProductMetaData();
-		getProductPriceData();
-		System.out.println("Full product details: " + productMap);
+		productMap = new TreeMap<String, String>(productExtractor.extract());
+		log.step("Full product details: {}", productMap);
 		return productMap;
 	}
 	
 	
-//	Brand: Apple
-//	Product Code: Product 18
-//	Reward Points: 800
-//	Availability: Out Of Stock
-	private void getProductMetaData() {
-		List<WebElement> MetaList = eleUtil.waitForAllElementsVisible(productMetaData, AppConstants.DEFAULT_TIMEOUT);
-		for(WebElement e : MetaList) {
-			String metaData = e.getText();
-			String meta[] = metaData.split(":");
-			String metaKey = meta[0].trim();
-			String metaValue = meta[1].trim();
-			productMap.put(metaKey, metaValue);
-		}
-	}
-	
-//	$2,000.00
-//	Ex Tax: $2,000.00
-	private void getProductPriceData() {
-		List<WebElement> priceList = eleUtil.waitForAllElementsVisible(productPriceData, AppConstants.DEFAULT_TIMEOUT);
-		String productPrice = priceList.get(0).getText();
-		String exTaxPrice = priceList.get(1).getText().split(":")[1].trim();
-		productMap.put("productprice", productPrice);
-		productMap.put("extaxprice", exTaxPrice);
-	}
-	
-	
 	
 
 }
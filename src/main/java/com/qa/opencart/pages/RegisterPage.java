@@ -55,7 +55,8 @@ public class RegisterPage {
 		
 		if (eleUtil.waitForElementVisible(successMessg, AppConstants.MEDIUM_DEFAULT_TIMEOUT).getText().contains(AppConstants.REGISTER_SUCCESS_MESSG)) {
 			eleUtil.doClick(logoutLink);
-			eleUtil.doClick(registerLink);
+			// back on the register page for the next row
+			eleUtil.capturePagePerformance(RegisterPage.class, () -> eleUtil.doClick(registerLink));
 			return true;
 		}
 		return false;
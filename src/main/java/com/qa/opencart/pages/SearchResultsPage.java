@@ -5,10 +5,13 @@ import org.openqa.selenium.WebDriver;
 
 import com.qa.opencart.constants.AppConstants;
 import com.qa.opencart.utils.ElementUtil;
+import com.qa.opencart.utils.FrameworkLogger;
 
 public class SearchResultsPage {
 	private WebDriver driver;
 	private ElementUtil eleUtil;
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(SearchResultsPage.class);
 	
 	private final By resultsProduct = By.cssSelector("div.product-thumb");
 	
@@ -21,14 +24,14 @@ public class SearchResultsPage {
 	public int getResultsProductCount() {
 		int searchCount = 
 				eleUtil.waitForAllElementsVisible(resultsProduct, AppConstants.MEDIUM_DEFAULT_TIMEOUT).size();
-		System.out.println("total number of search products: "+ searchCount);
+		log.step("total number of search products: {}", searchCount);
 		return searchCount;
 	}
 	
 	
 	public ProductInfoPage selectProduct(String productName) {
-		System.out.println("product name: "+ productName);
-		eleUtil.doClick(By.linkText(productName));
+		log.step("product name: {}", productName);
+		eleUtil.capturePagePerformance(ProductInfoPage.class, () -> eleUtil.doClick(By.linkText(productName)));
 		return new ProductInfoPage(driver);
 	}
 	
@@ -0,0 +1,352 @@
+package com.qa.opencart.runner;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlPackage;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.TestHistory;
+
+/**
+ * Splits a suite into N shards of about the same run time.
+ *
+ * Work units are the test classes of every &lt;test&gt; block, weighted with
+ * their historical durations from TestHistory. A class heavier than its share of
+ * the suite (total / N) is split into its test methods, and a data driven method
+ * that is still too heavy into chunks of data provider rows (invocation
+ * numbers). Units are then assigned longest first, each to the shard with the
+ * least work so far (LPT).
+ *
+ * Every piece of a split class pays the class setup (browser + @BeforeClass)
+ * again, so that cost is added to each unit. Classes with dependsOn are never
+ * split. The &lt;packages&gt; of a &lt;test&gt; are one unit: their classes are
+ * only known to TestNG, so they run together in one shard.
+ */
+public class ShardPlanner {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(ShardPlanner.class);
+
+	// rows appended to the last chunk of a split data provider, so rows added since
+	// the last run still run somewhere; TestNG ignores numbers past the last row
+	private static final int NEW_ROW_HEADROOM = 100;
+
+	// toSuite's group of the unit holding a <test>'s packages, not a class name
+	private static final String PACKAGES = "<packages>";
+
+	private final TestHistory history;
+	private final double defaultMillis;
+	private final double setupMillis;
+
+	/**
+	 * @param defaultMillis duration of a test method without history
+	 * @param setupMillis   cost of starting a class in a shard
+	 */
+	public ShardPlanner(TestHistory history, double defaultMillis, double setupMillis) {
+		this.history = history;
+		this.defaultMillis = defaultMillis;
+		this.setupMillis = setupMillis;
+	}
+
+	/**
+	 * one piece of work: a whole class, one method of it, some data provider
+	 * rows of one method, or the packages of a &lt;test&gt; (no xmlClass)
+	 */
+	static class WorkUnit {
+		final XmlTest test;
+		final XmlClass xmlClass;
+		final List<String> methods;
+		final List<Integer> rows;
+		final double millis;
+
+		WorkUnit(XmlTest test, XmlClass xmlClass, List<String> methods, List<Integer> rows, double millis) {
+			this.test = test;
+			this.xmlClass = xmlClass;
+			this.methods = methods;
+			this.rows = rows;
+			this.millis = millis;
+		}
+
+		boolean isWholeClass() {
+			return methods == null;
+		}
+
+		boolean isPackages() {
+			return xmlClass == null;
+		}
+
+		@Override
+		public String toString() {
+			if (isPackages()) {
+				return test.getName() + ":" + PACKAGES;
+			}
+			String name = test.getName() + ":" + xmlClass.getName();
+			if (!isWholeClass()) {
+				name += "#" + String.join(",", methods);
+			}
+			if (rows != null) {
+				name += rows.size() > 5 ? "[" + rows.get(0) + "..]" : rows;
+			}
+			return name;
+		}
+	}
+
+	public static class Shard {
+		private final int index;
+		private final List<WorkUnit> units = new ArrayList<WorkUnit>();
+		private double millis;
+
+		Shard(int index) {
+			this.index = index;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * planned run time, from history
+		 */
+		public double getMillis() {
+			return millis;
+		}
+
+		public boolean isEmpty() {
+			return units.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			return "shard " + index + " (" + Math.round(millis / 1000) + " s): " + units;
+		}
+	}
+
+	public List<Shard> plan(XmlSuite suite, int shardCount) {
+		List<WorkUnit> classes = new ArrayList<WorkUnit>();
+		Map<WorkUnit, Map<String, Double>> methodMillis = new LinkedHashMap<WorkUnit, Map<String, Double>>();
+		double total = 0;
+		for (XmlTest test : suite.getTests()) {
+			for (XmlClass xmlClass : test.getXmlClasses()) {
+				Map<String, Double> methods = testMethods(xmlClass);
+				double millis = setupMillis + methods.values().stream().mapToDouble(Double::doubleValue).sum();
+				WorkUnit unit = new WorkUnit(test, xmlClass, null, null, methods.isEmpty() ? millis + defaultMillis : millis);
+				classes.add(unit);
+				methodMillis.put(unit, methods);
+				total += unit.millis;
+			}
+			if (!test.getXmlPackages().isEmpty()) {
+				WorkUnit unit = new WorkUnit(test, null, null, null, setupMillis + defaultMillis);
+				classes.add(unit);
+				methodMillis.put(unit, Map.of());
+				total += unit.millis;
+				log.info("<test> {} uses packages, they are not split and run in one shard", test.getName());
+			}
+		}
+
+		double share = total / shardCount;
+		List<WorkUnit> units = new ArrayList<WorkUnit>();
+		for (WorkUnit unit : classes) {
+			if (unit.millis > share && methodMillis.get(unit).size() > 0 && isSplittable(unit.xmlClass)) {
+				units.addAll(split(unit, methodMillis.get(unit), share));
+			} else {
+				units.add(unit);
+			}
+		}
+
+		// LPT: longest unit first, always onto the least loaded shard
+		units.sort(Comparator.comparingDouble((WorkUnit u) -> u.millis).reversed());
+		PriorityQueue<Shard> byLoad = new PriorityQueue<Shard>(
+				Comparator.comparingDouble(Shard::getMillis).thenComparingInt(Shard::getIndex));
+		List<Shard> shards = new ArrayList<Shard>();
+		for (int i = 1; i <= shardCount; i++) {
+			Shard shard = new Shard(i);
+			shards.add(shard);
+			byLoad.add(shard);
+		}
+		for (WorkUnit unit : units) {
+			Shard shard = byLoad.poll();
+			shard.units.add(unit);
+			shard.millis += unit.millis;
+			byLoad.add(shard);
+		}
+		for (Shard shard : shards) {
+			log.info("{}", shard);
+		}
+		return shards;
+	}
+
+	private List<WorkUnit> split(WorkUnit classUnit, Map<String, Double> methods, double share) {
+		List<WorkUnit> units = new ArrayList<WorkUnit>();
+		for (Map.Entry<String, Double> method : methods.entrySet()) {
+			String key = TestHistory.methodKey(classUnit.xmlClass.getName(), method.getKey());
+			SortedMap<Integer, Double> rows = history.getRowMillis(key);
+			if (setupMillis + method.getValue() <= share || rows.size() < 2) {
+				units.add(new WorkUnit(classUnit.test, classUnit.xmlClass, List.of(method.getKey()), null,
+						setupMillis + method.getValue()));
+				continue;
+			}
+			// fill chunks of rows up to the share
+			List<Integer> chunk = new ArrayList<Integer>();
+			double chunkMillis = setupMillis;
+			for (Map.Entry<Integer, Double> row : rows.entrySet()) {
+				if (!chunk.isEmpty() && chunkMillis + row.getValue() > share) {
+					units.add(new WorkUnit(classUnit.test, classUnit.xmlClass, List.of(method.getKey()), chunk, chunkMillis));
+					chunk = new ArrayList<Integer>();
+					chunkMillis = setupMillis;
+				}
+				chunk.add(row.getKey());
+				chunkMillis += row.getValue();
+			}
+			for (int i = 1; i <= NEW_ROW_HEADROOM; i++) {
+				chunk.add(rows.lastKey() + i);
+			}
+			units.add(new WorkUnit(classUnit.test, classUnit.xmlClass, List.of(method.getKey()), chunk, chunkMillis));
+		}
+		return units;
+	}
+
+	/**
+	 * the enabled test methods the xml class runs, with their expected duration
+	 */
+	private Map<String, Double> testMethods(XmlClass xmlClass) {
+		Map<String, Double> methods = new LinkedHashMap<String, Double>();
+		Class<?> testClass = loadClass(xmlClass.getName());
+		if (testClass == null) {
+			return methods;
+		}
+		Test classTest = testClass.getAnnotation(Test.class);
+		List<String> included = xmlClass.getIncludedMethods().stream().map(XmlInclude::getName).toList();
+		for (Method method : testClass.getMethods()) {
+			Test test = method.getAnnotation(Test.class);
+			if (test == null && (classTest == null || method.getDeclaringClass() == Object.class)) {
+				continue;
+			}
+			if ((test != null && !test.enabled()) || (!included.isEmpty() && !included.contains(method.getName()))
+					|| xmlClass.getExcludedMethods().contains(method.getName())) {
+				continue;
+			}
+			double millis = history.getTotalMillis(TestHistory.methodKey(xmlClass.getName(), method.getName()));
+			methods.put(method.getName(), millis < 0 ? defaultMillis : millis);
+		}
+		return methods;
+	}
+
+	private static boolean isSplittable(XmlClass xmlClass) {
+		Class<?> testClass = loadClass(xmlClass.getName());
+		if (testClass == null) {
+			return false;
+		}
+		for (XmlInclude include : xmlClass.getIncludedMethods()) {
+			if (!include.getInvocationNumbers().isEmpty()) {
+				// already pinned to rows in the suite xml
+				return false;
+			}
+		}
+		for (Method method : testClass.getMethods()) {
+			Test test = method.getAnnotation(Test.class);
+			if (test != null && (test.dependsOnMethods().length > 0 || test.dependsOnGroups().length > 0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Class<?> loadClass(String name) {
+		try {
+			return Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			log.warn("test class {} not on the classpath, it is not split: {}", name, e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * the suite xml of one shard: the original suite with only the shard's
+	 * classes, methods and rows, &lt;test&gt; blocks keep their names and
+	 * parameters
+	 */
+	public XmlSuite toSuite(XmlSuite original, Shard shard) {
+		XmlSuite suite = original.shallowCopy();
+		suite.setTests(new ArrayList<XmlTest>());
+		suite.setListeners(new ArrayList<String>(original.getListeners()));
+
+		Map<XmlTest, Map<String, List<WorkUnit>>> byTest = new LinkedHashMap<XmlTest, Map<String, List<WorkUnit>>>();
+		for (XmlTest originalTest : original.getTests()) {
+			for (WorkUnit unit : shard.units) {
+				if (unit.test == originalTest) {
+					byTest.computeIfAbsent(originalTest, t -> new LinkedHashMap<String, List<WorkUnit>>())
+							.computeIfAbsent(unit.isPackages() ? PACKAGES : unit.xmlClass.getName(),
+									c -> new ArrayList<WorkUnit>())
+							.add(unit);
+				}
+			}
+		}
+		for (Map.Entry<XmlTest, Map<String, List<WorkUnit>>> entry : byTest.entrySet()) {
+			XmlTest originalTest = entry.getKey();
+			XmlTest test = new XmlTest(suite);
+			test.setName(originalTest.getName());
+			test.setParameters(originalTest.getLocalParameters());
+			test.setParallel(originalTest.getParallel());
+			test.setPreserveOrder(originalTest.getPreserveOrder());
+			test.setIncludedGroups(originalTest.getIncludedGroups());
+			test.setExcludedGroups(originalTest.getExcludedGroups());
+			List<XmlClass> xmlClasses = new ArrayList<XmlClass>();
+			for (Map.Entry<String, List<WorkUnit>> units : entry.getValue().entrySet()) {
+				if (PACKAGES.equals(units.getKey())) {
+					test.setXmlPackages(new ArrayList<XmlPackage>(originalTest.getXmlPackages()));
+				} else {
+					xmlClasses.add(toXmlClass(units.getValue()));
+				}
+			}
+			test.setXmlClasses(xmlClasses);
+		}
+		return suite;
+	}
+
+	private static XmlClass toXmlClass(List<WorkUnit> units) {
+		XmlClass original = units.get(0).xmlClass;
+		for (WorkUnit unit : units) {
+			if (unit.isWholeClass()) {
+				return original;
+			}
+		}
+		// parts of one method can land in the same shard: merge their rows
+		Map<String, TreeSet<Integer>> rowsByMethod = new LinkedHashMap<String, TreeSet<Integer>>();
+		for (WorkUnit unit : units) {
+			for (String method : unit.methods) {
+				TreeSet<Integer> rows = rowsByMethod.get(method);
+				if (unit.rows == null) {
+					rowsByMethod.put(method, new TreeSet<Integer>());
+				} else if (rows == null) {
+					rowsByMethod.put(method, new TreeSet<Integer>(unit.rows));
+				} else if (!rows.isEmpty()) {
+					rows.addAll(unit.rows);
+				}
+			}
+		}
+		XmlClass xmlClass = new XmlClass(original.getName(), false);
+		xmlClass.setParameters(original.getLocalParameters());
+		List<XmlInclude> includes = new ArrayList<XmlInclude>();
+		int index = 0;
+		for (Map.Entry<String, TreeSet<Integer>> method : rowsByMethod.entrySet()) {
+			XmlInclude include = new XmlInclude(method.getKey(), new ArrayList<Integer>(method.getValue()), index++);
+			include.setXmlClass(xmlClass);
+			includes.add(include);
+		}
+		xmlClass.setIncludedMethods(includes);
+		return xmlClass;
+	}
+
+}
@@ -0,0 +1,399 @@
+package com.qa.opencart.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.testng.xml.XmlSuite;
+import org.testng.xml.internal.Parser;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.standin.StandInServer;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.qa.opencart.utils.TestHistory;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * Runs a suite split into shards (see ShardPlanner), every shard in its own JVM,
+ * locally or on other machines over ssh, and merges the results.
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; com.qa.opencart.runner.ShardRunner
+ *     --suite ./src/test/resources/testrunners/testng_regression.xml --shards 4
+ *     [--hosts local,qa-box-1,qa-box-2] [--workdir ./target/shards]
+ *     [--remote-dir /home/ci/OpenCartIT] [--default-millis 30000] [--setup-millis 8000]
+ * </pre>
+ *
+ * or mvn test-compile exec:java -Pshards -Dshard.count=4
+ *
+ * Shards go round robin over the hosts. A remote host needs the project and the
+ * same classpath at --remote-dir (default: the same path as here), the shard xml
+ * is copied there and the shard's results copied back.
+ *
+ * With a localhost url (-Denv=local) the runner starts one OpenCart stand-in
+ * for all local shards and stops it after the last one. A remote shard starts
+ * its own on its host, so a remote host can then only take one shard.
+ *
+ * Results:
+ * <ul>
+ * <li>TestNG: workdir/testng-results.xml, all shard suites in one file</li>
+ * <li>Allure: the shard results are copied into allure-results (or
+ * -Dallure.results.directory)</li>
+ * <li>ChainTest: every shard writes its own report, workdir/chaintest.html links
+ * them (the generated html can not be merged)</li>
+ * <li>TestHistory: the shard histories are merged, so the next plan uses this
+ * run's durations</li>
+ * </ul>
+ */
+public class ShardRunner {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(ShardRunner.class);
+
+	private static final String LOCAL = "local";
+	private static final String[] RESULT_COUNTERS = { "total", "passed", "failed", "skipped", "ignored" };
+
+	private final Path suiteFile;
+	private final int shardCount;
+	private final List<String> hosts;
+	private final Path workDir;
+	private final String remoteDir;
+	private final double defaultMillis;
+	private final double setupMillis;
+	private boolean standInManaged;
+
+	private ShardRunner(Map<String, String> options) {
+		if (!options.containsKey("suite")) {
+			throw new FrameworkException("===SHARD RUNNER NEEDS --suite=== : " + options);
+		}
+		suiteFile = Paths.get(options.get("suite"));
+		hosts = Arrays.asList(options.getOrDefault("hosts", LOCAL).split(","));
+		shardCount = Integer.parseInt(options.getOrDefault("shards", String.valueOf(hosts.size())));
+		workDir = Paths.get(options.getOrDefault("workdir", "./target/shards"));
+		remoteDir = options.getOrDefault("remote-dir", Paths.get("").toAbsolutePath().toString());
+		defaultMillis = Double.parseDouble(options.getOrDefault("default-millis", "30000"));
+		setupMillis = Double.parseDouble(options.getOrDefault("setup-millis", "8000"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<String, String>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--") || i + 1 == args.length) {
+				throw new FrameworkException("===INVALID SHARD RUNNER ARGUMENT=== : " + args[i]);
+			}
+			options.put(args[i].substring(2), args[++i]);
+		}
+		System.exit(new ShardRunner(options).run());
+	}
+
+	/**
+	 * @return the worst TestNG exit code of the shards
+	 */
+	public int run() throws Exception {
+		List<XmlSuite> suites = new Parser(suiteFile.toString()).parseToList();
+		if (suites.isEmpty()) {
+			throw new FrameworkException("===NO SUITE IN=== : " + suiteFile);
+		}
+		XmlSuite suite = suites.get(0);
+		ShardPlanner planner = new ShardPlanner(TestHistory.getInstance(), defaultMillis, setupMillis);
+		List<ShardPlanner.Shard> shards = planner.plan(suite, shardCount);
+
+		StandInServer standIn = StandInServer.forConfig(ConfigService.getInstance());
+		if (standIn != null) {
+			checkOneShardPerRemoteHost(shards);
+			if (!standIn.start()) {
+				throw new FrameworkException("===STAND-IN PORT IN USE=== : " + standIn.getPort());
+			}
+			standInManaged = true;
+		}
+		try {
+			return runShards(suite, planner, shards);
+		} finally {
+			if (standIn != null) {
+				standIn.stop();
+			}
+		}
+	}
+
+	private int runShards(XmlSuite suite, ShardPlanner planner, List<ShardPlanner.Shard> shards)
+			throws Exception {
+		Files.createDirectories(workDir);
+		ExecutorService executor = Executors.newFixedThreadPool(shardCount);
+		Map<ShardPlanner.Shard, Future<Integer>> running = new LinkedHashMap<ShardPlanner.Shard, Future<Integer>>();
+		long start = System.currentTimeMillis();
+		for (ShardPlanner.Shard shard : shards) {
+			if (shard.isEmpty()) {
+				continue;
+			}
+			Path dir = shardDir(shard);
+			Files.createDirectories(dir);
+			Files.writeString(dir.resolve("testng-shard.xml"), planner.toSuite(suite, shard).toXml(),
+					StandardCharsets.UTF_8);
+			String host = hosts.get((shard.getIndex() - 1) % hosts.size());
+			running.put(shard, executor.submit(() -> runShard(shard, host)));
+		}
+
+		int exitCode = 0;
+		for (Map.Entry<ShardPlanner.Shard, Future<Integer>> entry : running.entrySet()) {
+			int shardExit = entry.getValue().get();
+			exitCode = Math.max(exitCode, shardExit);
+		}
+		executor.shutdown();
+		log.info("{} shard(s) done in {} s", running.size(), (System.currentTimeMillis() - start) / 1000);
+
+		mergeTestNgResults(running.keySet());
+		mergeAllureResults(running.keySet());
+		writeChainTestIndex(running.keySet());
+		mergeHistory(running.keySet());
+		return exitCode;
+	}
+
+	/**
+	 * shards on one remote host would share the stand-in the first of them
+	 * started, and lose it when that shard's suite ends
+	 */
+	private void checkOneShardPerRemoteHost(List<ShardPlanner.Shard> shards) {
+		Map<String, Integer> shardsByHost = new LinkedHashMap<String, Integer>();
+		for (ShardPlanner.Shard shard : shards) {
+			String host = hosts.get((shard.getIndex() - 1) % hosts.size());
+			if (!shard.isEmpty() && !LOCAL.equals(host) && shardsByHost.merge(host, 1, Integer::sum) > 1) {
+				throw new FrameworkException("===ONE SHARD PER REMOTE HOST WITH THE STAND-IN=== : " + host);
+			}
+		}
+	}
+
+	private Path shardDir(ShardPlanner.Shard shard) {
+		return workDir.resolve("shard-" + shard.getIndex());
+	}
+
+	private int runShard(ShardPlanner.Shard shard, String host) throws IOException, InterruptedException {
+		Path dir = shardDir(shard);
+		List<String> java = javaCommand(dir, !LOCAL.equals(host));
+		long start = System.currentTimeMillis();
+		int exitCode;
+		if (LOCAL.equals(host)) {
+			exitCode = exec(dir, java);
+		} else {
+			String remote = remoteDir + "/" + relative(dir);
+			int copied = exec(dir, List.of("ssh", host, "mkdir -p " + quote(remote)));
+			if (copied == 0) {
+				copied = exec(dir,
+						List.of("scp", "-q", dir.resolve("testng-shard.xml").toString(), host + ":" + remote + "/"));
+			}
+			if (copied != 0) {
+				log.warn("shard {} could not be copied to {} (exit code {}), see {}", shard.getIndex(), host, copied,
+						dir.resolve("console.log"));
+				return copied;
+			}
+			exitCode = exec(dir, List.of("ssh", host, "cd " + quote(remoteDir) + " && "
+					+ java.stream().map(ShardRunner::quote).collect(Collectors.joining(" "))));
+			int copiedBack = exec(dir, List.of("scp", "-q", "-r", host + ":" + remote + "/.", dir.toString()));
+			if (copiedBack != 0) {
+				log.warn("results of shard {} could not be copied back from {} (exit code {}), see {}",
+						shard.getIndex(), host, copiedBack, dir.resolve("console.log"));
+				exitCode = Math.max(exitCode, copiedBack);
+			}
+		}
+		log.info("shard {} on {} finished with exit code {} in {} s (planned {} s)", shard.getIndex(), host,
+				exitCode, (System.currentTimeMillis() - start) / 1000, Math.round(shard.getMillis() / 1000));
+		return exitCode;
+	}
+
+	/**
+	 * TestNG in a new JVM, with the shard's own output directories for every
+	 * report. Paths are relative to the project directory, so the same command
+	 * works on a remote host.
+	 */
+	private List<String> javaCommand(Path dir, boolean remote) {
+		String rel = relative(dir);
+		List<String> command = new ArrayList<String>();
+		command.add(remote ? "java" : Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(classpath());
+		// the -D config layer of this command line goes to the shard as well, also
+		// for keys the env file does not have (OC_ env vars are inherited locally)
+		for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			if (arg.startsWith("-D") && !arg.startsWith("-Denv=")) {
+				command.add(arg);
+			}
+		}
+		if (System.getProperty("env") != null) {
+			command.add("-Denv=" + System.getProperty("env"));
+		}
+		if (standInManaged && !remote) {
+			// the runner's stand-in serves all local shards
+			command.add("-Dstandin.managed=true");
+		}
+		command.add("-Dallure.results.directory=" + rel + "/allure-results");
+		command.add("-Dchaintest.generator.simple.output-file=" + rel + "/chaintest/Index.html");
+		command.add("-Dchaintest.generator.email.output-file=" + rel + "/chaintest/Email.html");
+		command.add("-Dtest.history.out=" + rel + "/history.tsv");
+		command.add("org.testng.TestNG");
+		command.add("-d");
+		command.add(rel + "/testng-output");
+		command.add(rel + "/testng-shard.xml");
+		return command;
+	}
+
+	private static int exec(Path dir, List<String> command) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command).redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(dir.resolve("console.log").toFile())).start();
+		return process.waitFor();
+	}
+
+	private static String relative(Path dir) {
+		return Paths.get("").toAbsolutePath().relativize(dir.toAbsolutePath().normalize()).toString()
+				.replace(File.separatorChar, '/');
+	}
+
+	private static String quote(String arg) {
+		return "'" + arg.replace("'", "'\\''") + "'";
+	}
+
+	/**
+	 * the classpath this runner was started with; under exec:java the test
+	 * classpath is only known to the class loader
+	 */
+	private static String classpath() {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (loader instanceof URLClassLoader) {
+			List<String> entries = new ArrayList<String>();
+			for (URL url : ((URLClassLoader) loader).getURLs()) {
+				try {
+					entries.add(Paths.get(url.toURI()).toString());
+				} catch (URISyntaxException | IllegalArgumentException e) {
+					entries.add(url.getPath());
+				}
+			}
+			if (!entries.isEmpty()) {
+				return String.join(File.pathSeparator, entries);
+			}
+		}
+		return System.getProperty("java.class.path");
+	}
+
+	/**
+	 * all shard suites under one testng-results root with the summed counters
+	 */
+	private void mergeTestNgResults(Iterable<ShardPlanner.Shard> shards) throws Exception {
+		DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		Document merged = null;
+		for (ShardPlanner.Shard shard : shards) {
+			Path results = shardDir(shard).resolve("testng-output/testng-results.xml");
+			if (!Files.isRegularFile(results)) {
+				log.warn("shard {} wrote no testng-results.xml, see {}", shard.getIndex(),
+						shardDir(shard).resolve("console.log"));
+				continue;
+			}
+			Document doc = builder.parse(results.toFile());
+			if (merged == null) {
+				merged = doc;
+				continue;
+			}
+			Element root = merged.getDocumentElement();
+			Element shardRoot = doc.getDocumentElement();
+			for (String counter : RESULT_COUNTERS) {
+				root.setAttribute(counter,
+						String.valueOf(count(root, counter) + count(shardRoot, counter)));
+			}
+			for (Node child = shardRoot.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if ("suite".equals(child.getNodeName())) {
+					root.appendChild(merged.importNode(child, true));
+				}
+			}
+		}
+		if (merged == null) {
+			return;
+		}
+		Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+		transformer.transform(new DOMSource(merged), new StreamResult(workDir.resolve("testng-results.xml").toFile()));
+		Element root = merged.getDocumentElement();
+		log.info("merged results: total {}, passed {}, failed {}, skipped {}", root.getAttribute("total"),
+				root.getAttribute("passed"), root.getAttribute("failed"), root.getAttribute("skipped"));
+	}
+
+	private static int count(Element element, String attribute) {
+		String value = element.getAttribute(attribute);
+		return value.isEmpty() ? 0 : Integer.parseInt(value);
+	}
+
+	/**
+	 * allure result files have unique names, the shard results are just copied
+	 * into one directory
+	 */
+	private void mergeAllureResults(Iterable<ShardPlanner.Shard> shards) throws IOException {
+		Path target = Paths.get(System.getProperty("allure.results.directory", "allure-results"));
+		Files.createDirectories(target);
+		int copied = 0;
+		for (ShardPlanner.Shard shard : shards) {
+			Path results = shardDir(shard).resolve("allure-results");
+			if (!Files.isDirectory(results)) {
+				continue;
+			}
+			try (Stream<Path> files = Files.list(results)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.copy(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+					copied++;
+				}
+			}
+		}
+		log.info("{} allure result file(s) copied to {}", copied, target);
+	}
+
+	private void writeChainTestIndex(Iterable<ShardPlanner.Shard> shards) throws IOException {
+		StringBuilder html = new StringBuilder(
+				"<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>chaintest shards</title></head><body>\n<h1>")
+				.append(suiteFile.getFileName()).append("</h1>\n<ul>\n");
+		for (ShardPlanner.Shard shard : shards) {
+			String report = "shard-" + shard.getIndex() + "/chaintest/Index.html";
+			html.append("<li><a href=\"").append(report).append("\">shard ").append(shard.getIndex())
+					.append("</a></li>\n");
+		}
+		html.append("</ul>\n<p>all shards: <a href=\"testng-results.xml\">testng-results.xml</a></p>\n</body></html>\n");
+		Files.writeString(workDir.resolve("chaintest.html"), html, StandardCharsets.UTF_8);
+	}
+
+	private void mergeHistory(Iterable<ShardPlanner.Shard> shards) throws IOException {
+		TestHistory history = TestHistory.getInstance();
+		// every shard started from this history
+		TestHistory base = history.copy();
+		for (ShardPlanner.Shard shard : shards) {
+			Path shardHistory = shardDir(shard).resolve("history.tsv");
+			if (Files.isRegularFile(shardHistory)) {
+				history.merge(TestHistory.load(shardHistory), base);
+			}
+		}
+		history.save();
+	}
+
+}
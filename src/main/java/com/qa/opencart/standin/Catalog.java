@@ -0,0 +1,139 @@
+package com.qa.opencart.standin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * The products of the stand-in store, read from standin/catalog.tsv on the
+ * classpath. Values are the ones of the demo store the tests were written
+ * against.
+ */
+public class Catalog {
+
+	private static final String CATALOG_RESOURCE = "/standin/catalog.tsv";
+
+	private final Map<String, Product> productsById;
+
+	public static class Product {
+		private final String id;
+		private final String name;
+		private final String brand;
+		private final String code;
+		private final String rewardPoints;
+		private final String availability;
+		private final String price;
+		private final String exTax;
+		private final int images;
+
+		Product(String[] cols) {
+			this.id = cols[0];
+			this.name = cols[1];
+			this.brand = cols[2];
+			this.code = cols[3];
+			this.rewardPoints = cols[4];
+			this.availability = cols[5];
+			this.price = cols[6];
+			this.exTax = cols[7];
+			this.images = Integer.parseInt(cols[8]);
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getPrice() {
+			return price;
+		}
+
+		public String getExTax() {
+			return exTax;
+		}
+
+		public int getImages() {
+			return images;
+		}
+
+		/**
+		 * label -> value lines of the product page, empty values left out like the
+		 * store does
+		 */
+		public Map<String, String> getMetaData() {
+			Map<String, String> meta = new LinkedHashMap<String, String>();
+			if (!brand.isEmpty()) {
+				meta.put("Brand", brand);
+			}
+			meta.put("Product Code", code);
+			if (!rewardPoints.isEmpty()) {
+				meta.put("Reward Points", rewardPoints);
+			}
+			meta.put("Availability", availability);
+			return meta;
+		}
+	}
+
+	public static Catalog load() {
+		Map<String, Product> products = new LinkedHashMap<String, Product>();
+		try (InputStream in = Catalog.class.getResourceAsStream(CATALOG_RESOURCE)) {
+			if (in == null) {
+				throw new FrameworkException("===STAND-IN CATALOG NOT FOUND=== : " + CATALOG_RESOURCE);
+			}
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank() || line.startsWith("#")) {
+					continue;
+				}
+				Product product = new Product(line.split("\t", -1));
+				products.put(product.getId(), product);
+			}
+		} catch (IOException e) {
+			throw new FrameworkException("===STAND-IN CATALOG COULD NOT BE READ=== : " + e);
+		}
+		return new Catalog(products);
+	}
+
+	private Catalog(Map<String, Product> productsById) {
+		this.productsById = Collections.unmodifiableMap(productsById);
+	}
+
+	/**
+	 * @return null for an unknown id
+	 */
+	public Product get(String id) {
+		return productsById.get(id);
+	}
+
+	/**
+	 * products whose name contains the search term, ignoring case
+	 */
+	public List<Product> search(String term) {
+		List<Product> found = new ArrayList<Product>();
+		String key = term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+		if (key.isEmpty()) {
+			return found;
+		}
+		for (Product product : productsById.values()) {
+			if (product.getName().toLowerCase(Locale.ROOT).contains(key)) {
+				found.add(product);
+			}
+		}
+		found.sort((a, b) -> a.getName().compareTo(b.getName()));
+		return found;
+	}
+
+}
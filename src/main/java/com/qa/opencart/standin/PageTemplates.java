@@ -0,0 +1,76 @@
+package com.qa.opencart.standin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * The html templates of the stand-in pages, standin/&lt;name&gt;.html on the
+ * classpath, with ${key} placeholders. Templates are read once.
+ */
+public class PageTemplates {
+
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([a-z]+)\\}");
+
+	private final Map<String, String> templates = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * fills the template, values are inserted as they are (escape user input
+	 * with escape()); unknown placeholders become empty
+	 */
+	public String render(String name, Map<String, String> values) {
+		String template = templates.computeIfAbsent(name, PageTemplates::read);
+		Matcher m = PLACEHOLDER.matcher(template);
+		StringBuilder html = new StringBuilder(template.length() + 256);
+		while (m.find()) {
+			m.appendReplacement(html, Matcher.quoteReplacement(values.getOrDefault(m.group(1), "")));
+		}
+		m.appendTail(html);
+		return html.toString();
+	}
+
+	public static String escape(String text) {
+		if (text == null) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder(text.length());
+		for (char c : text.toCharArray()) {
+			switch (c) {
+			case '<':
+				sb.append("&lt;");
+				break;
+			case '>':
+				sb.append("&gt;");
+				break;
+			case '&':
+				sb.append("&amp;");
+				break;
+			case '"':
+				sb.append("&quot;");
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String read(String name) {
+		String resource = "/standin/" + name + ".html";
+		try (InputStream in = PageTemplates.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new FrameworkException("===STAND-IN TEMPLATE NOT FOUND=== : " + resource);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new FrameworkException("===STAND-IN TEMPLATE COULD NOT BE READ=== : " + resource + " " + e);
+		}
+	}
+
+}
@@ -0,0 +1,468 @@
+package com.qa.opencart.standin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.standin.Catalog.Product;
+import com.qa.opencart.utils.FrameworkLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import FrameworkException.FrameworkException;
+
+import static com.qa.opencart.standin.PageTemplates.escape;
+
+/**
+ * Local stand-in for the OpenCart demo store, so the suite runs offline and at
+ * local speed: url = http://localhost:8089/opencart/index.php?route=account/login
+ * (see local.config.properties, -Denv=local).
+ *
+ * Serves the pages the page classes work on, by OpenCart route: account/login,
+ * account/account, product/search, product/product, account/register,
+ * account/success, account/logout and account/forgotten. Login and register are
+ * real form posts, the customer is kept in a session behind the OCSESSID
+ * cookie. The configured username/password is a registered customer. The
+ * standin.maxsessions (default 100000) least recently used sessions are kept,
+ * an older cookie gets a new, logged out session.
+ *
+ * Latency: every response waits standin.latency millis plus a random
+ * 0..standin.jitter, standin.latency.&lt;route with '.' for '/'&gt; overrides it
+ * per page (standin.latency.product.search = 300).
+ *
+ * Started by StandInServerListener when the url points to localhost, or on its
+ * own with main() (e.g. once for all shards of a ShardRunner run).
+ */
+public class StandInServer {
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(StandInServer.class);
+
+	private static final String SESSION_COOKIE = "OCSESSID";
+	private static final String LOGIN_ROUTE = "account/login";
+	private static final int DEFAULT_PORT = 8089;
+	private static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+	private final int port;
+	private final ConfigService config;
+	private final Catalog catalog = Catalog.load();
+	private final PageTemplates templates = new PageTemplates();
+
+	// email -> password
+	private final Map<String, String> customers = new ConcurrentHashMap<String, String>();
+	// session id -> logged in customer email, "" when logged out; least recently
+	// used first, a load run opens a session per journey
+	private final Map<String, String> sessions;
+	private final AtomicLong requests = new AtomicLong();
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public StandInServer(ConfigService config, int port) {
+		this.config = config;
+		this.port = port;
+		int maxSessions = config.getInt("standin.maxsessions", DEFAULT_MAX_SESSIONS);
+		sessions = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > maxSessions;
+			}
+		});
+		if (config.get("username") != null && config.get("password") != null) {
+			customers.put(config.get("username").toLowerCase(), config.get("password"));
+		}
+	}
+
+	/**
+	 * stand-in for the configured url
+	 *
+	 * @return null when the url does not point to this machine
+	 */
+	public static StandInServer forConfig(ConfigService config) {
+		URI uri = URI.create(config.getUrl());
+		if (!isLocalHost(uri.getHost())) {
+			return null;
+		}
+		return new StandInServer(config, uri.getPort() == -1 ? 80 : uri.getPort());
+	}
+
+	public static boolean isLocalHost(String host) {
+		return "localhost".equalsIgnoreCase(host) || "127.0.0.1".equals(host) || "[::1]".equals(host);
+	}
+
+	/**
+	 * @return false when the port is already taken, e.g. by a stand-in of another
+	 *         JVM, which then serves this run
+	 */
+	public synchronized boolean start() throws IOException {
+		// headers and body go out as separate writes: without TCP_NODELAY every
+		// response waits for the client's delayed ack (~40 ms)
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		try {
+			// a deep accept queue, a load run opens thousands of connections at once
+			server = HttpServer.create(new InetSocketAddress("localhost", port), config.getInt("standin.backlog", 1024));
+		} catch (BindException e) {
+			log.warn("port {} is already in use, using the server that runs there", port);
+			return false;
+		}
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "standin-http");
+			t.setDaemon(true);
+			return t;
+		});
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+		log.info("OpenCart stand-in running on http://localhost:{}/opencart/index.php", port);
+		return true;
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+			log.info("OpenCart stand-in stopped after {} request(s)", requests.get());
+		}
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			String sessionId = session(exchange);
+			String path = exchange.getRequestURI().getPath();
+			Map<String, String> params = parse(exchange.getRequestURI().getRawQuery());
+			// only index.php exists, like in the store
+			String route = path.endsWith("index.php") || path.endsWith("/") ? params.getOrDefault("route", "common/home")
+					: "error/not_found";
+			if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+				params.putAll(parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1)));
+			}
+			injectLatency(route);
+			route(exchange, route, params, sessionId);
+		} catch (RuntimeException e) {
+			log.error("stand-in request failed: " + exchange.getRequestURI(), e);
+			send(exchange, 500, "<h1>stand-in error</h1><pre>" + escape(e.toString()) + "</pre>");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void route(HttpExchange exchange, String route, Map<String, String> params, String sessionId)
+			throws IOException {
+		String customer = sessions.getOrDefault(sessionId, "");
+		boolean loggedIn = !customer.isEmpty();
+		Map<String, String> values = new HashMap<String, String>();
+		switch (route) {
+		case LOGIN_ROUTE:
+			if (loggedIn) {
+				redirect(exchange, "account/account");
+				return;
+			}
+			if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+				String email = params.getOrDefault("email", "").trim();
+				String password = customers.get(email.toLowerCase());
+				if (password != null && password.equals(params.get("password"))) {
+					sessions.put(sessionId, email.toLowerCase());
+					redirect(exchange, "account/account");
+					return;
+				}
+				values.put("alert", alert("Warning: No match for E-Mail Address and/or Password."));
+				values.put("email", escape(email));
+			}
+			send(exchange, 200, page("Account Login", false, "login", values));
+			return;
+		case "account/account":
+			if (!loggedIn) {
+				redirect(exchange, LOGIN_ROUTE);
+				return;
+			}
+			send(exchange, 200, page("My Account", true, "account", values));
+			return;
+		case "account/register":
+			if (loggedIn) {
+				redirect(exchange, "account/account");
+				return;
+			}
+			if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+				List<String> errors = register(params);
+				if (errors.isEmpty()) {
+					sessions.put(sessionId, params.get("email").trim().toLowerCase());
+					redirect(exchange, "account/success");
+					return;
+				}
+				values.put("alert", alert(String.join("<br />", errors)));
+			}
+			send(exchange, 200, page("Register Account", false, "register", values));
+			return;
+		case "account/success":
+			send(exchange, 200, page("Your Account Has Been Created!", loggedIn, "success", values));
+			return;
+		case "account/logout":
+			sessions.put(sessionId, "");
+			send(exchange, 200, page("Account Logout", false, "logout", values));
+			return;
+		case "account/forgotten":
+			values.put("heading", "Forgot Your Password?");
+			values.put("text", "Enter the e-mail address associated with your account.");
+			send(exchange, 200, page("Forgot Your Password?", loggedIn, "message", values));
+			return;
+		case "product/search":
+			send(exchange, 200, searchPage(params.getOrDefault("search", ""), loggedIn));
+			return;
+		case "product/product":
+			Product product = catalog.get(params.getOrDefault("product_id", ""));
+			if (product == null) {
+				values.put("heading", "Product not found!");
+				values.put("text", "The page you requested cannot be found.");
+				send(exchange, 404, page("Product not found!", loggedIn, "message", values));
+				return;
+			}
+			send(exchange, 200, productPage(product, loggedIn));
+			return;
+		case "common/home":
+			values.put("heading", "Your Store");
+			values.put("text", "OpenCart stand-in");
+			send(exchange, 200, page("Your Store", loggedIn, "message", values));
+			return;
+		default:
+			values.put("heading", "Page Not Found!");
+			values.put("text", "The page you requested cannot be found.");
+			send(exchange, 404, page("Page Not Found!", loggedIn, "message", values));
+		}
+	}
+
+	private String searchPage(String term, boolean loggedIn) {
+		List<Product> found = catalog.search(term);
+		StringBuilder results = new StringBuilder();
+		for (Product product : found) {
+			Map<String, String> item = new HashMap<String, String>();
+			item.put("id", product.getId());
+			item.put("name", escape(product.getName()));
+			item.put("search", escape(URLEncoder.encode(term, StandardCharsets.UTF_8)));
+			item.put("price", escape(product.getPrice()));
+			item.put("extax", escape(product.getExTax()));
+			results.append(templates.render("search-item", item));
+		}
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("search", escape(term));
+		values.put("results", results.toString());
+		values.put("summary", found.isEmpty() ? "There is no product that matches the search criteria."
+				: "Showing 1 to " + found.size() + " of " + found.size() + " (1 Pages)");
+		return page("Search - " + term, loggedIn, "search", values);
+	}
+
+	private String productPage(Product product, boolean loggedIn) {
+		StringBuilder images = new StringBuilder();
+		for (int i = 1; i <= product.getImages(); i++) {
+			images.append("<li><a class=\"thumbnail\" href=\"#\" title=\"").append(escape(product.getName()))
+					.append("\"><img src=\"data:image/gif;base64,R0lGODlhAQABAAAAACw=\" width=\"")
+					.append(i == 1 ? 228 : 74).append("\" height=\"").append(i == 1 ? 228 : 74).append("\" alt=\"")
+					.append(escape(product.getName())).append("\" /></a></li>\n");
+		}
+		StringBuilder meta = new StringBuilder();
+		for (Map.Entry<String, String> line : product.getMetaData().entrySet()) {
+			meta.append("<li>").append(line.getKey()).append(": ");
+			if ("Brand".equals(line.getKey())) {
+				meta.append("<a href=\"index.php?route=product/manufacturer\">").append(escape(line.getValue()))
+						.append("</a>");
+			} else {
+				meta.append(escape(line.getValue()));
+			}
+			meta.append("</li>\n");
+		}
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("name", escape(product.getName()));
+		values.put("images", images.toString());
+		values.put("meta", meta.toString());
+		values.put("price", escape(product.getPrice()));
+		values.put("extax", escape(product.getExTax()));
+		return page(product.getName(), loggedIn, "product", values);
+	}
+
+	/**
+	 * the checks of the store's register form
+	 */
+	private List<String> register(Map<String, String> form) {
+		List<String> errors = new ArrayList<String>();
+		String email = form.getOrDefault("email", "").trim().toLowerCase();
+		if (!between(form.get("firstname"), 1, 32)) {
+			errors.add("First Name must be between 1 and 32 characters!");
+		}
+		if (!between(form.get("lastname"), 1, 32)) {
+			errors.add("Last Name must be between 1 and 32 characters!");
+		}
+		if (!email.matches("[^@\\s]+@[^@\\s]+")) {
+			errors.add("E-Mail Address does not appear to be valid!");
+		} else if (customers.containsKey(email)) {
+			errors.add("Warning: E-Mail Address is already registered!");
+		}
+		if (!between(form.get("telephone"), 3, 32)) {
+			errors.add("Telephone must be between 3 and 32 characters!");
+		}
+		if (!between(form.get("password"), 4, 20)) {
+			errors.add("Password must be between 4 and 20 characters!");
+		} else if (!form.get("password").equals(form.get("confirm"))) {
+			errors.add("Password confirmation does not match password!");
+		}
+		if (form.get("agree") == null) {
+			errors.add("Warning: You must agree to the Privacy Policy!");
+		}
+		if (errors.isEmpty() && customers.putIfAbsent(email, form.get("password")) != null) {
+			errors.add("Warning: E-Mail Address is already registered!");
+		}
+		return errors;
+	}
+
+	private static boolean between(String value, int min, int max) {
+		return value != null && value.trim().length() >= min && value.trim().length() <= max;
+	}
+
+	private String page(String title, boolean loggedIn, String template, Map<String, String> values) {
+		Map<String, String> layout = new HashMap<String, String>();
+		layout.put("title", escape(title));
+		layout.put("content", templates.render(template, values));
+		layout.put("alert", values.getOrDefault("alert", ""));
+		layout.put("search", template.equals("search") ? values.get("search") : "");
+		layout.put("toplinks", "<a href=\"index.php?route=account/account\">My Account</a> "
+				+ "<a href=\"index.php?route=account/wishlist\">Wish List (0)</a> "
+				+ "<a href=\"index.php?route=checkout/cart\">Shopping Cart</a>");
+		layout.put("sidelinks", sideLinks(loggedIn));
+		return templates.render("layout", layout);
+	}
+
+	private static String sideLinks(boolean loggedIn) {
+		Map<String, String> links = new LinkedHashMap<String, String>();
+		if (!loggedIn) {
+			links.put("Login", LOGIN_ROUTE);
+			links.put("Register", "account/register");
+			links.put("Forgotten Password", "account/forgotten");
+		}
+		links.put("My Account", "account/account");
+		if (loggedIn) {
+			links.put("Edit Account", "account/edit");
+			links.put("Password", "account/password");
+		}
+		links.put("Address Book", "account/address");
+		links.put("Wish List", "account/wishlist");
+		links.put("Order History", "account/order");
+		links.put("Newsletter", "account/newsletter");
+		if (loggedIn) {
+			links.put("Logout", "account/logout");
+		}
+		StringBuilder html = new StringBuilder();
+		for (Map.Entry<String, String> link : links.entrySet()) {
+			html.append("<a href=\"index.php?route=").append(link.getValue()).append("\" class=\"list-group-item\">")
+					.append(link.getKey()).append("</a>\n");
+		}
+		return html.toString();
+	}
+
+	private static String alert(String message) {
+		return "<div class=\"alert alert-danger alert-dismissible\">" + message + "</div>";
+	}
+
+	/**
+	 * the session of the request's OCSESSID cookie, a new one (and cookie) when
+	 * there is none
+	 */
+	private String session(HttpExchange exchange) {
+		for (String header : exchange.getRequestHeaders().getOrDefault("Cookie", List.of())) {
+			for (String cookie : header.split(";")) {
+				String[] kv = cookie.trim().split("=", 2);
+				if (kv.length == 2 && kv[0].equals(SESSION_COOKIE) && sessions.containsKey(kv[1])) {
+					return kv[1];
+				}
+			}
+		}
+		String id = UUID.randomUUID().toString().replace("-", "");
+		sessions.put(id, "");
+		exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + id + "; Path=/; HttpOnly");
+		return id;
+	}
+
+	private void injectLatency(String route) {
+		long latency = config.getInt("standin.latency." + route.replace('/', '.'), config.getInt("standin.latency", 0));
+		int jitter = config.getInt("standin.jitter", 0);
+		if (jitter > 0) {
+			latency += ThreadLocalRandom.current().nextInt(jitter + 1);
+		}
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void redirect(HttpExchange exchange, String route) throws IOException {
+		exchange.getResponseHeaders().add("Location", "index.php?route=" + route);
+		exchange.sendResponseHeaders(302, -1);
+	}
+
+	private static void send(HttpExchange exchange, int status, String html) throws IOException {
+		byte[] body = html.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+		exchange.getResponseHeaders().add("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parse(String query) {
+		Map<String, String> params = new HashMap<String, String>();
+		if (query == null || query.isEmpty()) {
+			return params;
+		}
+		for (String pair : query.split("&")) {
+			String[] kv = pair.split("=", 2);
+			params.put(URLDecoder.decode(kv[0], StandardCharsets.UTF_8),
+					kv.length == 2 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "");
+		}
+		return params;
+	}
+
+	/**
+	 * runs the stand-in for the config of -Denv until the process is stopped
+	 */
+	public static void main(String[] args) throws Exception {
+		ConfigService config = ConfigService.getInstance();
+		StandInServer server = forConfig(config);
+		if (server == null) {
+			server = new StandInServer(config, config.getInt("standin.port", DEFAULT_PORT));
+		}
+		if (!server.start()) {
+			throw new FrameworkException("===STAND-IN PORT IN USE=== : " + server.getPort());
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		Thread.currentThread().join();
+	}
+
+}
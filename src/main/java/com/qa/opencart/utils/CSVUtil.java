@@ -1,41 +1,212 @@
 package com.qa.opencart.utils;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+import com.qa.opencart.events.TestDataLoadEvent;
+
+import FrameworkException.FrameworkException;
 
 public class CSVUtil {
 	private static final String CSV_PATH = "./src/test/resources/testdata/";
 
-	private static List<String[]> rows;
+	private static final Map<String, TestDataTable> csvCache = new ConcurrentHashMap<String, TestDataTable>();
 
 	public static Object[][] csvData(String csvName) {
-		String csvFile = CSV_PATH + csvName + ".csv";
+		return getTable(Paths.get(CSV_PATH + csvName + ".csv")).toArray();
+	}
 
-		CSVReader reader;
+	/**
+	 * the parsed csv file, loaded once per JVM (path + modification time) and
+	 * reused across runs from its binary snapshot, see TestDataSnapshot
+	 */
+	public static TestDataTable getTable(Path csvFile) {
+		Path path = csvFile.toAbsolutePath().normalize();
+		TestDataLoadEvent event = new TestDataLoadEvent();
+		event.begin();
+		// memory, snapshot or parsed, for the load event
+		String[] source = { "memory" };
+		TestDataTable table = null;
+		RuntimeException error = null;
 		try {
-			reader = new CSVReader(new FileReader(csvFile));
-			rows = reader.readAll();
-			reader.close();
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} catch (CsvException e) {
-			e.printStackTrace();
+			long lastModified;
+			try {
+				lastModified = Files.getLastModifiedTime(path).toMillis();
+			} catch (IOException e) {
+				throw new FrameworkException("===CSV FILE NOT FOUND=== : " + csvFile);
+			}
+			table = csvCache.computeIfAbsent(path + "|" + lastModified, key -> {
+				source[0] = "snapshot";
+				return TestDataSnapshot.load(path, null, () -> {
+					source[0] = "parsed";
+					return readTable(path);
+				});
+			});
+			return table;
+		} catch (RuntimeException e) {
+			error = e;
+			throw e;
+		} finally {
+			event.finish(path.toString(), null, table == null ? 0 : table.getRowCount(), source[0], error);
 		}
+	}
 
-		Object[][] data = new Object[rows.size()][];
+	/**
+	 * forgets the parsed file, in memory and its snapshot; the next call parses
+	 * it again
+	 */
+	public static void evict(Path csvFile) {
+		String prefix = csvFile.toAbsolutePath().normalize() + "|";
+		csvCache.keySet().removeIf(key -> key.startsWith(prefix));
+		TestDataSnapshot.delete(csvFile, null);
+	}
 
-		for (int i = 0; i < rows.size(); i++) {
-			data[i] = rows.get(i);
+	private static TestDataTable readTable(Path csvFile) {
+		List<String[]> rows = new ArrayList<String[]>();
+		int columnCount = 0;
+		try (CsvRowIterator it = new CsvRowIterator(csvFile)) {
+			while (it.hasNext()) {
+				String[] row = (String[]) it.next();
+				rows.add(row);
+				columnCount = Math.max(columnCount, row.length);
+			}
 		}
+		return new TestDataTable(rows, columnCount);
+	}
 
-		return data;
+	/**
+	 * Lazy DataProvider source for big csv files: rows are read from a buffered
+	 * file channel and parsed one at a time as TestNG asks for them, so the first
+	 * row runs before the file is read completely and memory does not grow with
+	 * the file size. TestNG pulls the rows from one thread and hands them to the
+	 * parallel workers; hasNext and next are not one atomic step, so threads
+	 * sharing the iterator themselves should use nextRow instead.
+	 *
+	 * <pre>
+	 * &#64;DataProvider(parallel = true)
+	 * public Iterator&lt;Object[]&gt; getSearchData() {
+	 * 	return CSVUtil.csvIterator("search");
+	 * }
+	 * </pre>
+	 *
+	 * Fields are separated by comma, or by tab when the first line has tabs and no
+	 * commas. The file is closed after the last row, by close, or once an
+	 * abandoned iterator is garbage collected.
+	 */
+	public static CsvRowIterator csvIterator(String csvName) {
+		return new CsvRowIterator(Paths.get(CSV_PATH + csvName + ".csv"));
+	}
+
+	private static final Cleaner cleaner = Cleaner.create();
+
+	public static class CsvRowIterator implements Iterator<Object[]>, AutoCloseable {
+		private final Path csvFile;
+		private CSVReader reader;
+		private Cleaner.Cleanable cleanable;
+		private String[] nextRow;
+
+		CsvRowIterator(Path csvFile) {
+			this.csvFile = csvFile;
+			try {
+				BufferedReader in = new BufferedReader(Channels.newReader(
+						FileChannel.open(csvFile, StandardOpenOption.READ), StandardCharsets.UTF_8.newDecoder(), -1));
+				reader = new CSVReaderBuilder(in)
+						.withCSVParser(new CSVParserBuilder().withSeparator(detectSeparator(in)).build())
+						.build();
+				CSVReader toClose = reader;
+				cleanable = cleaner.register(this, () -> closeQuietly(toClose));
+				nextRow = readRow();
+			} catch (NoSuchFileException e) {
+				throw new FrameworkException("===CSV FILE NOT FOUND=== : " + csvFile);
+			} catch (IOException e) {
+				throw new UncheckedIOException("csv file could not be read: " + csvFile, e);
+			}
+		}
+
+		private static char detectSeparator(BufferedReader in) throws IOException {
+			in.mark(64 * 1024);
+			String firstLine = in.readLine();
+			in.reset();
+			return firstLine != null && firstLine.indexOf('\t') >= 0 && firstLine.indexOf(',') < 0 ? '\t' : ',';
+		}
+
+		private String[] readRow() {
+			try {
+				String[] row = reader.readNext();
+				if (row == null) {
+					close();
+				}
+				return row;
+			} catch (IOException | CsvValidationException e) {
+				close();
+				throw new FrameworkException("===CSV FILE COULD NOT BE READ=== : " + csvFile + " " + e);
+			}
+		}
+
+		// static: the cleaner action must not hold on to the iterator
+		private static void closeQuietly(CSVReader reader) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// nothing left to read from it
+			}
+		}
+
+		/**
+		 * hands out the next row and advances in one step, null after the last
+		 * row; for threads that share the iterator
+		 */
+		public synchronized String[] nextRow() {
+			String[] row = nextRow;
+			if (row != null) {
+				nextRow = readRow();
+			}
+			return row;
+		}
+
+		/**
+		 * closes the file, the remaining rows are dropped
+		 */
+		@Override
+		public synchronized void close() {
+			nextRow = null;
+			cleanable.clean();
+		}
+
+		@Override
+		public synchronized boolean hasNext() {
+			return nextRow != null;
+		}
+
+		@Override
+		public Object[] next() {
+			String[] row = nextRow();
+			if (row == null) {
+				throw new NoSuchElementException("no more rows in " + csvFile);
+			}
+			return row;
+		}
 	}
 
 }
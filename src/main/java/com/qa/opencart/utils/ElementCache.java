@@ -0,0 +1,70 @@
+package com.qa.opencart.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Per page element handle cache: every locator is found once and the handle is
+ * reused until the page navigates. A handle of an old document throws
+ * StaleElementReferenceException on use, ElementUtil then evicts it and finds
+ * the element again.
+ *
+ * Lookup counters are kept per test thread so the listener can report how many
+ * findElement calls each test saved.
+ */
+public class ElementCache {
+
+	private final Map<By, WebElement> handles = new HashMap<By, WebElement>();
+
+	// [0] lookups saved, [1] stale handles re-resolved
+	private static final ThreadLocal<long[]> counters = ThreadLocal.withInitial(() -> new long[2]);
+
+	public WebElement get(By locator) {
+		WebElement element = handles.get(locator);
+		if (element != null) {
+			counters.get()[0]++;
+		}
+		return element;
+	}
+
+	public void put(By locator, WebElement element) {
+		handles.put(locator, element);
+	}
+
+	/**
+	 * drops a stale handle, the next get finds the element again
+	 */
+	public void evictStale(By locator) {
+		if (handles.remove(locator) != null) {
+			counters.get()[1]++;
+		}
+	}
+
+	/**
+	 * drops every handle, e.g. after an explicit navigation
+	 */
+	public void clear() {
+		handles.clear();
+	}
+
+	public static long getSavedLookups() {
+		return counters.get()[0];
+	}
+
+	public static long getStaleReResolved() {
+		return counters.get()[1];
+	}
+
+	/**
+	 * starts counting for a new test on the current thread
+	 */
+	public static void resetCounters() {
+		long[] c = counters.get();
+		c[0] = 0;
+		c[1] = 0;
+	}
+
+}
@@ -1,37 +1,111 @@
 package com.qa.opencart.utils;
 
+import static com.qa.opencart.constants.AppConstants.DEFAULT_TIMEOUT;
+
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
 import org.openqa.selenium.NoAlertPresentException;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NotFoundException;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.FluentWait;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.Wait;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import com.aventstack.chaintest.plugins.ChainTestListener;
+import com.qa.opencart.events.ElementStepEvent;
 import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.utils.LocatorProfiler.Phase;
+import com.qa.opencart.utils.PageConditions.ConditionResult;
 
 public class ElementUtil {
 	private WebDriver driver;
 	private Actions act;
 	private JavaScriptUtil jsUtil;
+	private WaitEngine waitEngine = WaitEngine.getInstance();
+	private ElementCache elementCache = new ElementCache();
+	private LocatorProfiler profiler = LocatorProfiler.getInstance();
+	private final boolean highlight;
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(ElementUtil.class);
+
+	// page object using this util, waits are learned and reported per page
+	private final String pageName;
 
 	public ElementUtil(WebDriver driver) {
 		this.driver = driver;
 		act = new Actions(driver);
 		jsUtil = new JavaScriptUtil(driver);
+		highlight = DriverFactory.isHighlightEnabled();
+		pageName = findPageName();
+	}
+
+	private static String findPageName() {
+		return StackWalker.getInstance()
+				.walk(frames -> frames.map(StackWalker.StackFrame::getClassName)
+						.filter(name -> !name.startsWith(ElementUtil.class.getPackageName() + "."))
+						.findFirst())
+				.map(name -> name.substring(name.lastIndexOf('.') + 1))
+				.orElse("unknown");
+	}
+
+	private String waitKey(String condition, Object target) {
+		return pageName + " | " + condition + " | " + target;
+	}
+
+	/**
+	 * runs the driver call and records its time for the locator, failed calls
+	 * (e.g. timed out waits) included, in the profiler and as a flight recorder
+	 * event
+	 */
+	private <T> T profiled(By locator, Phase phase, Supplier<T> call) {
+		ElementStepEvent event = new ElementStepEvent();
+		if (!profiler.isEnabled() && !event.isEnabled()) {
+			return call.get();
+		}
+		event.begin();
+		long start = System.nanoTime();
+		Throwable error = null;
+		try {
+			return call.get();
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			if (profiler.isEnabled()) {
+				profiler.record(pageName, locator, phase, System.nanoTime() - start);
+			}
+			event.finish(pageName, locator, phase.name().toLowerCase(), error);
+		}
+	}
+
+	/**
+	 * profiled lookup, the first lookup of an xpath on this page also probes for a
+	 * faster css equivalent
+	 */
+	private <T> T find(By locator, Supplier<T> lookup) {
+		T found = profiled(locator, Phase.FIND, lookup);
+		if (profiler.shouldProbe(pageName, locator)) {
+			probeXPath(locator);
+		}
+		return found;
 	}
 
 	private void nullCheck(CharSequence... value) {
@@ -42,57 +116,62 @@ public class ElementUtil {
 
 	public void doSendKeys(By locator, String value) {
 		nullCheck(value);
-		getElement(locator).clear();
-		getElement(locator).sendKeys(value);
+		withElement(locator, e -> {
+			e.clear();
+			e.sendKeys(value);
+			return null;
+		});
 	}
 
 	public void doSendKeys(String locatorType, String locatorValue, String value) {
-		nullCheck(value);
-		getElement(locatorType, locatorValue).clear();
-		getElement(locatorType, locatorValue).sendKeys(value);
+		doSendKeys(getBy(locatorType, locatorValue), value);
 	}
 
 	public void doSendKeys(By locator, CharSequence... value) {
 		nullCheck(value);
-		getElement(locator).clear();
-		getElement(locator).sendKeys(value);
+		withElement(locator, e -> {
+			e.clear();
+			e.sendKeys(value);
+			return null;
+		});
 	}
 
 	public void doSendKeys(String locatorType, String locatorValue, CharSequence... value) {
-		nullCheck(value);
-		getElement(locatorType, locatorValue).clear();
-		getElement(locatorType, locatorValue).sendKeys(value);
+		doSendKeys(getBy(locatorType, locatorValue), value);
 	}
 
 	public void doClick(By locator) {
-		getElement(locator).click();
+		withElement(locator, e -> {
+			e.click();
+			return null;
+		});
 	}
 
 	public void doClick(String locatorType, String locatorValue) {
-		getElement(locatorType, locatorValue).click();
+		doClick(getBy(locatorType, locatorValue));
 	}
 
 	public String doElementGetText(By locator) {
-		String eleText = getElement(locator).getText();
-		System.out.println("element text =>" + eleText);
+		String eleText = withElement(locator, WebElement::getText);
+		log.debug("element text =>{}", eleText);
 		return eleText;
 	}
 
 	public String getElementDomAttributeValue(By locator, String attrName) {
 		nullCheck(attrName);
-		return getElement(locator).getDomAttribute(attrName);
+		return withElement(locator, e -> e.getDomAttribute(attrName));
 	}
 
 	public String getElementDomPropertyValue(By locator, String propName) {
 		nullCheck(propName);
-		return getElement(locator).getDomProperty(propName);
+		return withElement(locator, e -> e.getDomProperty(propName));
 	}
 
 	public boolean isElementDisplayed(By locator) {
 		try {
-			return getElement(locator).isDisplayed();
+			return withElement(locator, WebElement::isDisplayed);
 		} catch (NoSuchElementException e) {
-			System.out.println("element is not present on the page using : " + locator);
+			log.warn("element is not present on the page using : {}", locator);
 			return false;
 		}
 	}
@@ -128,7 +207,7 @@ public class ElementUtil {
 			break;
 
 		default:
-			System.out.println("plz pass the right locator type: " + locatorType);
+			log.warn("plz pass the right locator type: {}", locatorType);
 			break;
 		}
 
@@ -137,20 +216,50 @@ public class ElementUtil {
 	}
 
 	public WebElement getElement(String locatorType, String locatorValue) {
-		return driver.findElement(getBy(locatorType, locatorValue));
+		return getElement(getBy(locatorType, locatorValue));
 	}
 
+	/**
+	 * returns the cached handle of the locator, the element is only looked up the
+	 * first time or after the handle went stale
+	 */
 	public WebElement getElement(By locator) {
-		ChainTestListener.log("locator : "+ locator.toString());
-		WebElement element = driver.findElement(locator);
+		WebElement element = elementCache.get(locator);
+		if (element == null) {
+			log.step("locator : {}", locator);
+			element = find(locator, () -> driver.findElement(locator));
+			elementCache.put(locator, element);
+		}
 		highlightElement(element);
 		return element;
 
 	}
+
+	/**
+	 * runs the action on the cached element, a stale handle (the page changed
+	 * since it was found) is re-resolved once transparently
+	 */
+	private <T> T withElement(By locator, Function<WebElement, T> action) {
+		try {
+			WebElement element = getElement(locator);
+			return profiled(locator, Phase.ACTION, () -> action.apply(element));
+		} catch (StaleElementReferenceException e) {
+			elementCache.evictStale(locator);
+			WebElement element = getElement(locator);
+			return profiled(locator, Phase.ACTION, () -> action.apply(element));
+		}
+	}
+
+	/**
+	 * forgets all the cached element handles of this page
+	 */
+	public void clearElementCache() {
+		elementCache.clear();
+	}
 	
 	private void highlightElement(WebElement element) {
-		if(Boolean.parseBoolean(DriverFactory.highlight)) {
-			jsUtil.flash(element);
+		if (highlight) {
+			jsUtil.highlight(element);
 		}
 	}	
 
@@ -160,13 +269,11 @@ public class ElementUtil {
 
 	// *********************** findElements Utils****************//
 	public List<String> getElementTextList(By locator) {
-		List<WebElement> eleList = getElements(locator);
 		List<String> eleTextList = new ArrayList<String>();// pc=0; []
 
-		for (WebElement e : eleList) {
-			String text = e.getText();
+		for (String text : getElementsText(locator)) {
 			if (text.length() != 0) {
-				System.out.println(text);
+				log.debug("element text: {}", text);
 				eleTextList.add(text);
 			}
 		}
@@ -174,87 +281,271 @@ public class ElementUtil {
 	}
 
 	public int getElementsCount(By locator) {
-		int eleCount = getElements(locator).size();
-		System.out.println("element count ==>" + eleCount);
+		int eleCount = countElements(locator);
+		log.debug("element count ==>{}", eleCount);
 		return eleCount;
 	}
 
 	public boolean checkElementDisplayed(By locator) {
-		if (getElements(locator).size() == 1) {
-			System.out.println("element : " + locator + " is displayed on the page one time");
+		if (countElements(locator) == 1) {
+			log.debug("element : {} is displayed on the page one time", locator);
 			return true;
 		}
 		return false;
 	}
 
 	public boolean checkElementDisplayed(By locator, int expElementCount) {
-		if (getElements(locator).size() == expElementCount) {
-			System.out.println("element : " + locator + " is displayed on the page " + expElementCount + " times");
+		if (countElements(locator) == expElementCount) {
+			log.debug("element : {} is displayed on the page {} times", locator, expElementCount);
 			return true;
 		}
 		return false;
 	}
 
 	public void clickElement(By locator, String value) {
-		List<WebElement> eleList = getElements(locator);
-		System.out.println("total number of elements: " + eleList.size());
-		for (WebElement e : eleList) {
-			String text = e.getText();
-			System.out.println(text);
+		List<WebElement> eleList = new ArrayList<WebElement>();
+		List<String> textList = getElementsWithText(locator, eleList);
+		log.debug("total number of elements: {}", eleList.size());
+		for (int i = 0; i < eleList.size(); i++) {
+			String text = textList.get(i);
+			log.debug("element text: {}", text);
 			if (text.contains(value)) {
-				e.click();
+				eleList.get(i).click();
 				break;
 			}
 		}
 	}
 
 	public List<WebElement> getElements(By locator) {
-		return driver.findElements(locator);
+		return find(locator, () -> driver.findElements(locator));
+	}
+
+	// *********Bulk read Utils -- one executeScript for all the matching elements*******//
+
+	private static final String READ_ELEMENTS_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "var els = ocFind(arguments[0], arguments[1]), attrs = arguments[2], props = arguments[3], out = [];"
+			+ "for (var i = 0; i < els.length; i++) {"
+			+ "  var e = els[i], a = {}, p = {};"
+			+ "  attrs.forEach(function(n) { a[n] = e.getAttribute(n); });"
+			+ "  props.forEach(function(n) { var v = e[n]; p[n] = (v === undefined || v === null) ? null : String(v); });"
+			+ "  out.push({text: ocText(e), displayed: ocVisible(e), attributes: a, properties: p});"
+			+ "}"
+			+ "return out;";
+
+	private static final String COUNT_ELEMENTS_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "return ocFind(arguments[0], arguments[1]).length;";
+
+	private static final String ELEMENTS_WITH_TEXT_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "var els = ocFind(arguments[0], arguments[1]);"
+			+ "return [els, els.map(ocText)];";
+
+	private static final String OPTION_TEXTS_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "var s = ocFind(arguments[0], arguments[1])[0];"
+			+ "if (!s || s.tagName.toLowerCase() !== 'select') { return null; }"
+			+ "return Array.prototype.map.call(s.options, function(o) { return o.text.replace(/\\s+/g, ' ').trim(); });";
+
+	/**
+	 * reads text, visibility, the given DOM attributes and the given DOM properties
+	 * of every element matching the locator in one driver round trip. Each map has
+	 * the keys: text, displayed, attributes (map), properties (map).
+	 * 
+	 * @param locator
+	 * @param attrNames DOM attribute names to read
+	 * @param propNames DOM property names to read
+	 * @return one map per matching element, in document order
+	 */
+	public List<Map<String, Object>> getElementsData(By locator, List<String> attrNames, List<String> propNames) {
+		return find(locator, () -> readElementsData(locator, attrNames, propNames));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> readElementsData(By locator, List<String> attrNames, List<String> propNames) {
+		Object[] args = JSLocator.toArgs(locator);
+		if (args != null) {
+			try {
+				return (List<Map<String, Object>>) jsUtil.executeScript(READ_ELEMENTS_SCRIPT, args[0], args[1],
+						attrNames, propNames);
+			} catch (JavascriptException e) {
+				log.warn("locator can not be evaluated by js, reading element by element: {}", locator);
+			}
+		}
+		List<Map<String, Object>> dataList = new ArrayList<Map<String, Object>>();
+		for (WebElement e : driver.findElements(locator)) {
+			Map<String, Object> attrs = new LinkedHashMap<String, Object>();
+			for (String name : attrNames) {
+				attrs.put(name, e.getDomAttribute(name));
+			}
+			Map<String, Object> props = new LinkedHashMap<String, Object>();
+			for (String name : propNames) {
+				props.put(name, e.getDomProperty(name));
+			}
+			Map<String, Object> data = new LinkedHashMap<String, Object>();
+			data.put("text", e.getText());
+			data.put("displayed", e.isDisplayed());
+			data.put("attributes", attrs);
+			data.put("properties", props);
+			dataList.add(data);
+		}
+		return dataList;
+	}
+
+	/**
+	 * visible text of every element matching the locator, empty string for hidden
+	 * elements (same as WebElement.getText)
+	 */
+	public List<String> getElementsText(By locator) {
+		List<String> textList = new ArrayList<String>();
+		for (Map<String, Object> data : getElementsData(locator, List.of(), List.of())) {
+			textList.add((String) data.get("text"));
+		}
+		return textList;
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<String> getElementsDomAttributeValue(By locator, String attrName) {
+		nullCheck(attrName);
+		List<String> valList = new ArrayList<String>();
+		for (Map<String, Object> data : getElementsData(locator, List.of(attrName), List.of())) {
+			valList.add((String) ((Map<String, Object>) data.get("attributes")).get(attrName));
+		}
+		return valList;
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<String> getElementsDomPropertyValue(By locator, String propName) {
+		nullCheck(propName);
+		List<String> valList = new ArrayList<String>();
+		for (Map<String, Object> data : getElementsData(locator, List.of(), List.of(propName))) {
+			valList.add((String) ((Map<String, Object>) data.get("properties")).get(propName));
+		}
+		return valList;
+	}
+
+	public List<Boolean> getElementsDisplayed(By locator) {
+		List<Boolean> displayedList = new ArrayList<Boolean>();
+		for (Map<String, Object> data : getElementsData(locator, List.of(), List.of())) {
+			displayedList.add((Boolean) data.get("displayed"));
+		}
+		return displayedList;
+	}
+
+	/**
+	 * number of elements matching the locator without transferring element
+	 * references over the wire
+	 */
+	public int countElements(By locator) {
+		return find(locator, () -> count(locator));
+	}
+
+	private int count(By locator) {
+		Object[] args = JSLocator.toArgs(locator);
+		if (args != null) {
+			try {
+				return ((Number) jsUtil.executeScript(COUNT_ELEMENTS_SCRIPT, args)).intValue();
+			} catch (JavascriptException e) {
+				log.warn("locator can not be evaluated by js, counting with findElements: {}", locator);
+			}
+		}
+		return driver.findElements(locator).size();
+	}
+
+	/**
+	 * fills eleList with the matching elements and returns their texts, both in
+	 * one round trip
+	 */
+	private List<String> getElementsWithText(By locator, List<WebElement> eleList) {
+		return find(locator, () -> readElementsWithText(locator, eleList));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> readElementsWithText(By locator, List<WebElement> eleList) {
+		Object[] args = JSLocator.toArgs(locator);
+		if (args != null) {
+			try {
+				List<Object> result = (List<Object>) jsUtil.executeScript(ELEMENTS_WITH_TEXT_SCRIPT, args);
+				eleList.addAll((List<WebElement>) result.get(0));
+				return (List<String>) result.get(1);
+			} catch (JavascriptException e) {
+				log.warn("locator can not be evaluated by js, reading element by element: {}", locator);
+			}
+		}
+		List<String> textList = new ArrayList<String>();
+		for (WebElement e : driver.findElements(locator)) {
+			eleList.add(e);
+			textList.add(e.getText());
+		}
+		return textList;
+	}
+
+	/**
+	 * trimmed texts of all the options of a select drop down in one round trip
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> getOptionTexts(By locator) {
+		Object[] args = JSLocator.toArgs(locator);
+		if (args != null) {
+			try {
+				List<String> optionsValList = find(locator,
+						() -> (List<String>) jsUtil.executeScript(OPTION_TEXTS_SCRIPT, args));
+				if (optionsValList != null) {
+					return optionsValList;
+				}
+			} catch (JavascriptException e) {
+				log.warn("locator can not be evaluated by js, reading option by option: {}", locator);
+			}
+		}
+		// not found or not a select: Select reports the error as before
+		Select select = withElement(locator, Select::new);
+		List<String> optionsValList = new ArrayList<String>();
+		for (WebElement e : select.getOptions()) {
+			optionsValList.add(e.getText().trim());
+		}
+		return optionsValList;
 	}
 
 	// ****************Drop Down Utils -- Select based DropDown*********//
 
 	public boolean doSelectDropDownByIndex(By locator, int index) {
-		Select select = new Select(getElement(locator));
+		Select select = withElement(locator, Select::new);
 		try {
 			select.selectByIndex(index);
 			return true;
 		} catch (NoSuchElementException e) {
-			System.out.println(index + " is not present in the dropdown");
+			log.warn("{} is not present in the dropdown", index);
 			return false;
 		}
 	}
 
 	public boolean doSelectDropDownByVisibleText(By locator, String visibleText) {
-		Select select = new Select(getElement(locator));
+		Select select = withElement(locator, Select::new);
 		try {
 			select.selectByVisibleText(visibleText);
 			return true;
 		} catch (NoSuchElementException e) {
-			System.out.println(visibleText + " is not present in the dropdown");
+			log.warn("{} is not present in the dropdown", visibleText);
 			return false;
 		}
 	}
 
 	public boolean doSelectDropDownByValue(By locator, String value) {
-		Select select = new Select(getElement(locator));
+		Select select = withElement(locator, Select::new);
 		try {
 			select.selectByValue(value);
 			return true;
 		} catch (NoSuchElementException e) {
-			System.out.println(value + " is not present in the dropdown");
+			log.warn("{} is not present in the dropdown", value);
 			return false;
 		}
 	}
 
 	public boolean selectDropDownValue(By locator, String value) {
-		Select select = new Select(getElement(locator));
+		Select select = withElement(locator, Select::new);
 		List<WebElement> optionsList = select.getOptions();
-		System.out.println(optionsList.size());
+		log.debug("dropdown options count: {}", optionsList.size());
 		boolean flag = false;
 		for (WebElement e : optionsList) {
 			String text = e.getText();
-			System.out.println(text);
+			log.debug("element text: {}", text);
 			if (text.equals(value)) {
 				e.click();
 				flag = true;
@@ -263,35 +554,23 @@ public class ElementUtil {
 		}
 
 		if (flag) {
-			System.out.println(value + " is selected");
+			log.debug("{} is selected", value);
 			return true;
 		} else {
-			System.out.println(value + " is not selected");
+			log.warn("{} is not selected", value);
 			return false;
 		}
 	}
 
 	public List<String> getDropDownValueList(By locator) {
-		Select select = new Select(getElement(locator));
-		List<WebElement> optionsList = select.getOptions();
-		System.out.println(optionsList.size());
-		List<String> optionsValList = new ArrayList<String>();
-		for (WebElement e : optionsList) {
-			String text = e.getText();
-			optionsValList.add(text.trim());
-		}
+		List<String> optionsValList = getOptionTexts(locator);
+		log.debug("dropdown options count: {}", optionsValList.size());
 		return optionsValList;
 	}
 
 	public boolean getDropDownValueList(By locator, List<String> expOptionsList) {
-		Select select = new Select(getElement(locator));
-		List<WebElement> optionsList = select.getOptions();
-		System.out.println(optionsList.size());
-		List<String> optionsValList = new ArrayList<String>();
-		for (WebElement e : optionsList) {
-			String text = e.getText();
-			optionsValList.add(text.trim());
-		}
+		List<String> optionsValList = getOptionTexts(locator);
+		log.debug("dropdown options count: {}", optionsValList.size());
 
 		if (optionsValList.containsAll(expOptionsList)) {
 			return true;
@@ -315,9 +594,9 @@ public class ElementUtil {
 	 */
 	public void selectChoice(By choice, By choicesList, String... choiceValue) throws InterruptedException {
 		doClick(choice);
-		Thread.sleep(2000);
+		waitForElementVisibleOnEvent(choicesList, DEFAULT_TIMEOUT);
 		List<WebElement> choices = getElements(choicesList);
-		System.out.println(choices.size());
+		log.debug("choices count: {}", choices.size());
 
 		if (choiceValue[0].equalsIgnoreCase("all")) {
 			// logic to select all the choices:
@@ -328,7 +607,7 @@ public class ElementUtil {
 
 			for (WebElement e : choices) {
 				String text = e.getText();
-				System.out.println(text);
+				log.debug("element text: {}", text);
 
 				for (String value : choiceValue) {
 					if (text.trim().equals(value)) {
@@ -344,39 +623,312 @@ public class ElementUtil {
 
 	// ************Actions Utils************//
 
+	/**
+	 * moves to the element and waits until the page stops changing (no DOM
+	 * mutation for a short quiet period), at most the 2 s the fixed sleep used to
+	 * take: pages that never stop changing (carousels, ads) go on after that
+	 */
 	public void doMoveToElement(By locator) throws InterruptedException {
-		act.moveToElement(getElement(locator)).build().perform();
-		Thread.sleep(2000);
+		withElement(locator, e -> {
+			act.moveToElement(e).build().perform();
+			return null;
+		});
+		waitForDomToSettleMillis(DOM_QUIET_MILLIS, MOVE_SETTLE_CAP_MILLIS);
+	}
+
+	/**
+	 * moves to the element and waits until the menu it opens is visible
+	 * 
+	 * @return the visible sub menu element
+	 */
+	public WebElement doMoveToElement(By locator, By subMenu) throws InterruptedException {
+		withElement(locator, e -> {
+			act.moveToElement(e).build().perform();
+			return null;
+		});
+		return waitForElementVisibleOnEvent(subMenu, DEFAULT_TIMEOUT);
 	}
 
 	public void handleParentSubMenu(By parentMenu, By subMenu) throws InterruptedException {
-		doMoveToElement(parentMenu);
-		doClick(subMenu);
+		doMoveToElement(parentMenu, subMenu).click();
 	}
 
 	public void handle4LevelMenuHandle(By level1Menu, By level2Menu, By level3Menu, By level4Menu)
 			throws InterruptedException {
 		doClick(level1Menu);
-		Thread.sleep(2000);
-		doMoveToElement(level2Menu);
-		Thread.sleep(2000);
-		doMoveToElement(level3Menu);
-		Thread.sleep(2000);
-		doClick(level4Menu);
+		waitForElementVisibleOnEvent(level2Menu, DEFAULT_TIMEOUT);
+		doMoveToElement(level2Menu, level3Menu);
+		doMoveToElement(level3Menu, level4Menu).click();
 	}
 
 	public void doActionsSendKeys(By locator, String value) {
-		act.sendKeys(getElement(locator), value).perform();
+		withElement(locator, e -> {
+			act.sendKeys(e, value).perform();
+			return null;
+		});
 	}
 
 	public void doActionsClick(By locator) {
-		act.click(getElement(locator)).perform();
+		withElement(locator, e -> {
+			act.click(e).perform();
+			return null;
+		});
 	}
 
 	public void doSendKeysWithPause(By locator, String value, long pauseTime) {
 		char val[] = value.toCharArray();
 		for (char ch : val) {
-			act.sendKeys(getElement(locator), String.valueOf(ch)).pause(pauseTime).perform();
+			withElement(locator, e -> {
+				act.sendKeys(e, String.valueOf(ch)).pause(pauseTime).perform();
+				return null;
+			});
+		}
+	}
+
+	// Event driven wait Utils**************//
+
+	private static final int DOM_QUIET_MILLIS = 100;
+	private static final int MOVE_SETTLE_CAP_MILLIS = 2000;
+
+	// resolves from a MutationObserver as soon as a matching element is visible.
+	// css :hover menus and transitions change visibility without a mutation, so
+	// the condition is also re-checked every frame inside the browser
+	private static final String VISIBLE_ON_EVENT_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "var using = arguments[0], value = arguments[1], timeout = arguments[2], cb = arguments[arguments.length - 1];"
+			+ "function visible() { var els = ocFind(using, value);"
+			+ "  for (var i = 0; i < els.length; i++) { if (ocVisible(els[i])) { return els[i]; } } return null; }"
+			+ "var found = visible(); if (found) { cb(found); return; }"
+			+ "var done = false, obs, timer;"
+			+ "function finish(r) { if (done) { return; } done = true; obs.disconnect(); clearTimeout(timer); cb(r); }"
+			+ "function check() { var e = visible(); if (e) { finish(e); } }"
+			+ "obs = new MutationObserver(check);"
+			+ "obs.observe(document, {subtree: true, childList: true, attributes: true});"
+			+ "(function frame() { if (!done) { check(); setTimeout(frame, 16); } })();"
+			+ "timer = setTimeout(function() { finish(null); }, timeout);";
+
+	private static final String DOM_SETTLED_SCRIPT =
+			"var quiet = arguments[0], timeout = arguments[1], cb = arguments[arguments.length - 1];"
+			+ "var start = performance.now(), last = start;"
+			+ "var obs = new MutationObserver(function() { last = performance.now(); });"
+			+ "obs.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});"
+			+ "(function check() { var now = performance.now();"
+			+ "  if (now - last >= quiet || now - start >= timeout) { obs.disconnect(); cb(now - last >= quiet); }"
+			+ "  else { setTimeout(check, 16); } })();";
+
+	/**
+	 * async scripts are killed by the driver after the script timeout. Sessions
+	 * start with DriverFactory's script timeout, it is only raised for a longer
+	 * wait and put back after it, so a pooled session keeps its value.
+	 */
+	private <T> T withScriptTimeout(int timeOut, Supplier<T> script) {
+		int sessionTimeOut = DriverFactory.getSessionScriptTimeout();
+		if (timeOut + 1 <= sessionTimeOut) {
+			return script.get();
+		}
+		driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(timeOut + 1));
+		try {
+			return script.get();
+		} finally {
+			driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(sessionTimeOut));
+		}
+	}
+
+	/**
+	 * waits for an element to be visible, the browser signals back as soon as the
+	 * element appears or becomes visible instead of being polled. Same timeout
+	 * semantics as waitForElementVisible.
+	 * 
+	 * @param locator
+	 * @param timeOut
+	 * @return the visible element
+	 */
+	public WebElement waitForElementVisibleOnEvent(By locator, int timeOut) {
+		Object[] args = JSLocator.toArgs(locator);
+		if (args == null) {
+			return waitForElementVisible(locator, timeOut);
+		}
+		Object element;
+		try {
+			element = withScriptTimeout(timeOut, () -> profiled(locator, Phase.WAIT,
+					() -> jsUtil.executeAsyncScript(VISIBLE_ON_EVENT_SCRIPT, args[0], args[1], timeOut * 1000)));
+		} catch (JavascriptException e) {
+			// e.g. the page navigated while waiting
+			return waitForElementVisible(locator, timeOut);
+		}
+		if (element == null) {
+			throw new TimeoutException("Expected condition failed: waiting for visibility of element located by "
+					+ locator + " (tried for " + timeOut + " second(s))");
+		}
+		highlightElement((WebElement) element);
+		return (WebElement) element;
+	}
+
+	/**
+	 * waits until the DOM had no mutation for quietMillis, or the timeout is over
+	 * 
+	 * @return true if the DOM settled within the timeout
+	 */
+	public boolean waitForDomToSettle(int quietMillis, int timeOut) {
+		return waitForDomToSettleMillis(quietMillis, timeOut * 1000);
+	}
+
+	private boolean waitForDomToSettleMillis(int quietMillis, int timeOutMillis) {
+		try {
+			return (Boolean) withScriptTimeout((timeOutMillis + 999) / 1000,
+					() -> jsUtil.executeAsyncScript(DOM_SETTLED_SCRIPT, quietMillis, timeOutMillis));
+		} catch (JavascriptException e) {
+			return false;
+		}
+	}
+
+	// ****************Page performance**************//
+
+	private static final int PAGE_LOAD_WAIT = 5;
+	private static final int PAGE_PERFORMANCE_ATTEMPTS = 3;
+
+	// once a document other than the last measured one (timeOrigin) has fired its
+	// load event: navigation and resource timing, and the lcp and long task
+	// entries the browser buffered (null where the browser has none). null when
+	// the document did not change within the wait
+	private static final String PAGE_PERFORMANCE_SCRIPT =
+			"var last = arguments[0], wait = arguments[1], cb = arguments[arguments.length - 1];"
+			+ "function buffered(type) {"
+			+ "  if (!window.PerformanceObserver || (PerformanceObserver.supportedEntryTypes || []).indexOf(type) < 0) { return null; }"
+			+ "  try { var o = new PerformanceObserver(function() {}); o.observe({type: type, buffered: true});"
+			+ "    var list = o.takeRecords(); o.disconnect(); return list; } catch (e) { return null; } }"
+			+ "function sum(list, field) { return list.reduce(function(s, e) { return s + (e[field] || 0); }, 0); }"
+			+ "function collect() {"
+			+ "  var nav = performance.getEntriesByType('navigation')[0], res = performance.getEntriesByType('resource');"
+			+ "  var out = {origin: performance.timeOrigin, url: location.href, resources: res.length,"
+			+ "    bytes: sum(res, 'transferSize') + (nav ? nav.transferSize || 0 : 0)};"
+			+ "  if (nav) { out.ttfb = nav.responseStart; out.domContentLoaded = nav.domContentLoadedEventEnd; out.load = nav.loadEventEnd; }"
+			+ "  var lcp = buffered('largest-contentful-paint');"
+			+ "  if (lcp && lcp.length) { out.lcp = lcp[lcp.length - 1].startTime; }"
+			+ "  var tasks = buffered('longtask');"
+			+ "  if (tasks) { out.longTasks = sum(tasks, 'duration'); out.longTaskCount = tasks.length; }"
+			+ "  cb(out); }"
+			+ "var deadline = Date.now() + wait;"
+			+ "(function poll() {"
+			+ "  var loaded = performance.timeOrigin !== last && document.readyState === 'complete';"
+			+ "  if (loaded) { setTimeout(collect, 0); }"
+			+ "  else if (Date.now() < deadline) { setTimeout(poll, 50); }"
+			+ "  else if (performance.timeOrigin !== last) { collect(); }"
+			+ "  else { cb(null); } })();";
+
+	/**
+	 * runs the page action that leaves the page (click, get) and hands the front
+	 * end timings of the document it navigated to to PagePerformance, under the
+	 * page object that takes over. Waits up to PAGE_LOAD_WAIT seconds for a
+	 * document other than the one before the action (performance.timeOrigin) and
+	 * its load event; records nothing when the page did not change.
+	 * 
+	 * @throws AssertionError when a page budget is exceeded in hard mode
+	 */
+	public void capturePagePerformance(Class<?> page, Runnable navigation) {
+		PagePerformance performance = PagePerformance.getInstance();
+		if (!performance.isEnabled()) {
+			navigation.run();
+			return;
+		}
+		Double before = performance.getLastDocument();
+		try {
+			Object origin = jsUtil.executeScript("return performance.timeOrigin");
+			if (origin instanceof Number) {
+				before = ((Number) origin).doubleValue();
+			}
+		} catch (WebDriverException e) {
+			log.debug("document before {} unknown: {}", page.getSimpleName(), e.getMessage());
+		}
+		navigation.run();
+		capturePagePerformance(page, performance, before);
+	}
+
+	/**
+	 * the same for a document loaded by someone else (the session's start page):
+	 * measured unless this thread measured it already
+	 */
+	public void capturePagePerformance(Class<?> page) {
+		PagePerformance performance = PagePerformance.getInstance();
+		if (performance.isEnabled()) {
+			capturePagePerformance(page, performance, performance.getLastDocument());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void capturePagePerformance(Class<?> page, PagePerformance performance, Double previous) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PAGE_LOAD_WAIT);
+		Map<String, Object> sample = null;
+		for (int attempt = 1;; attempt++) {
+			long waitMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (waitMillis <= 0) {
+				break;
+			}
+			try {
+				sample = (Map<String, Object>) withScriptTimeout(PAGE_LOAD_WAIT + 1,
+						() -> jsUtil.executeAsyncScript(PAGE_PERFORMANCE_SCRIPT, previous, waitMillis));
+				break;
+			} catch (WebDriverException e) {
+				// the old document unloaded under the script: ask the new one
+				if (attempt == PAGE_PERFORMANCE_ATTEMPTS) {
+					log.debug("page performance of {} could not be read: {}", page.getSimpleName(), e.getMessage());
+					return;
+				}
+			}
+		}
+		if (sample == null) {
+			log.debug("no new document for {} after {} s, page performance not captured", page.getSimpleName(),
+					PAGE_LOAD_WAIT);
+			return;
+		}
+		performance.record(page.getSimpleName(), sample);
+	}
+
+	// ****************Locator profiling**************//
+
+	private static final int XPATH_PROBE_RUNS = 200;
+
+	// looks for a css/id selector matching exactly the elements of the xpath
+	// (id, class path, class path with nth-of-type) and times both lookups
+	private static final String XPATH_PROBE_SCRIPT =
+			"var xp = arguments[0], runs = arguments[1];"
+			+ "function byXpath() { var s = document.evaluate(xp, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), r = [];"
+			+ "  for (var i = 0; i < s.snapshotLength; i++) { r.push(s.snapshotItem(i)); } return r; }"
+			+ "var els = byXpath().filter(function(e) { return e.nodeType === 1; });"
+			+ "if (!els.length) { return null; }"
+			+ "function step(e, nth) { if (e.id) { return '#' + CSS.escape(e.id); }"
+			+ "  var s = e.tagName.toLowerCase();"
+			+ "  for (var i = 0; i < e.classList.length; i++) { s += '.' + CSS.escape(e.classList[i]); }"
+			+ "  if (nth) { var k = 1, p = e; while ((p = p.previousElementSibling)) { if (p.tagName === e.tagName) { k++; } }"
+			+ "    s += ':nth-of-type(' + k + ')'; }"
+			+ "  return s; }"
+			+ "function path(e, nthParents, nthLast) { var parts = [];"
+			+ "  for (var c = e; c && c.nodeType === 1; c = c.parentElement) {"
+			+ "    parts.unshift(step(c, c === e ? nthLast : nthParents)); if (c.id) { break; } }"
+			+ "  return parts.join(' > '); }"
+			+ "function same(css) { try { var l = document.querySelectorAll(css); if (l.length !== els.length) { return false; }"
+			+ "  for (var i = 0; i < l.length; i++) { if (l[i] !== els[i]) { return false; } } return true; } catch (x) { return false; } }"
+			+ "var cands = [path(els[0], false, false), path(els[0], true, false), path(els[0], true, true)], css = null;"
+			+ "for (var i = 0; i < cands.length && !css; i++) { if (same(cands[i])) { css = cands[i]; } }"
+			+ "if (!css) { return null; }"
+			+ "function time(f) { var t = performance.now(); for (var i = 0; i < runs; i++) { f(); } return (performance.now() - t) * 1000 / runs; }"
+			+ "var xt = time(byXpath), ct = time(function() { return document.querySelectorAll(css); });"
+			+ "return [css, xt, ct];";
+
+	/**
+	 * asks the browser for a css selector equivalent to the xpath and how long
+	 * each takes, the profiler reports it when the css one is clearly faster
+	 */
+	@SuppressWarnings("unchecked")
+	private void probeXPath(By locator) {
+		try {
+			List<Object> result = (List<Object>) jsUtil.executeScript(XPATH_PROBE_SCRIPT, JSLocator.toArgs(locator)[1],
+					XPATH_PROBE_RUNS);
+			if (result != null) {
+				profiler.setEquivalent(pageName, locator, (String) result.get(0), ((Number) result.get(1)).doubleValue(),
+						((Number) result.get(2)).doubleValue());
+			}
+		} catch (WebDriverException e) {
+			log.debug("xpath probe failed for {} : {}", locator, e.getMessage());
 		}
 	}
 
@@ -391,8 +943,8 @@ public class ElementUtil {
 	 * @return
 	 */
 	public List<WebElement> waitForAllElementsPresence(By locator, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		return wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
+		return profiled(locator, Phase.WAIT, () -> waitEngine.until(driver, waitKey("presence of all", locator), timeOut,
+				ExpectedConditions.presenceOfAllElementsLocatedBy(locator)));
 	}
 
 	/**
@@ -405,9 +957,9 @@ public class ElementUtil {
 	 * @return
 	 */
 	public List<WebElement> waitForAllElementsVisible(By locator, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
 		try {
-			return wait.until(ExpectedConditions.visibilityOfAllElementsLocatedBy(locator));
+			return profiled(locator, Phase.WAIT, () -> waitEngine.until(driver, waitKey("visibility of all", locator),
+					timeOut, ExpectedConditions.visibilityOfAllElementsLocatedBy(locator)));
 		} catch (TimeoutException e) {
 			return Collections.EMPTY_LIST; //[]-0
 		}
@@ -422,8 +974,8 @@ public class ElementUtil {
 	 * @return
 	 */
 	public WebElement waitForElementPresence(By locator, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		return wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+		return profiled(locator, Phase.WAIT, () -> waitEngine.until(driver, waitKey("presence", locator), timeOut,
+				ExpectedConditions.presenceOfElementLocated(locator)));
 	}
 
 	/**
@@ -436,8 +988,9 @@ public class ElementUtil {
 	 * @return
 	 */
 	public WebElement waitForElementVisible(By locator, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+		WebElement element = profiled(locator, Phase.WAIT, () -> waitEngine.until(driver,
+				waitKey("visibility", locator), timeOut, ExpectedConditions.visibilityOfElementLocated(locator)));
+		elementCache.put(locator, element);
 		highlightElement(element);
 		return element;
 	}
@@ -450,8 +1003,12 @@ public class ElementUtil {
 	 * @param timeOut
 	 */
 	public void clickWhenReady(By locator, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		wait.until(ExpectedConditions.elementToBeClickable(locator)).click();
+		WebElement element = profiled(locator, Phase.WAIT, () -> waitEngine.until(driver, waitKey("clickable", locator),
+				timeOut, ExpectedConditions.elementToBeClickable(locator)));
+		profiled(locator, Phase.ACTION, () -> {
+			element.click();
+			return null;
+		});
 	}
 
 	public void clickWithWait(By locator, int timeOut) {
@@ -464,10 +1021,9 @@ public class ElementUtil {
 
 	// *****wait for alert(JS POP)*****//
 	public Alert waitForAlert(int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		wait.pollingEvery(Duration.ofSeconds(1)).ignoring(NoAlertPresentException.class)
-				.withMessage("===js alert not present");
-		return wait.until(ExpectedConditions.alertIsPresent());
+		return waitEngine.until(driver, waitKey("alert", "js alert"), Duration.ofSeconds(timeOut),
+				ExpectedConditions.alertIsPresent(), "===js alert not present",
+				List.of(NotFoundException.class, NoAlertPresentException.class));
 	}
 
 	public void acceptAlert(int timeOut) {
@@ -488,9 +1044,8 @@ public class ElementUtil {
 
 	// wait for title:
 	public String waitFotTitleContains(String fractionTitle, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
 		try {
-			wait.until(ExpectedConditions.titleContains(fractionTitle));
+			waitEngine.until(driver, waitKey("title contains", fractionTitle), timeOut, ExpectedConditions.titleContains(fractionTitle));
 			return driver.getTitle();
 
 		} catch (TimeoutException e) {
@@ -500,9 +1055,8 @@ public class ElementUtil {
 	}
 
 	public String waitFotTitleIs(String title, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
 		try {
-			wait.until(ExpectedConditions.titleIs(title));
+			waitEngine.until(driver, waitKey("title is", title), timeOut, ExpectedConditions.titleIs(title));
 			return driver.getTitle();
 
 		} catch (TimeoutException e) {
@@ -513,9 +1067,8 @@ public class ElementUtil {
 
 	// wait for url:
 	public String waitForURLContains(String fractionURL, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
 		try {
-			wait.until(ExpectedConditions.urlContains(fractionURL));
+			waitEngine.until(driver, waitKey("url contains", fractionURL), timeOut, ExpectedConditions.urlContains(fractionURL));
 			return driver.getCurrentUrl();
 
 		} catch (TimeoutException e) {
@@ -525,9 +1078,8 @@ public class ElementUtil {
 	}
 
 	public String waitForURLIs(String url, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
 		try {
-			wait.until(ExpectedConditions.urlToBe(url));
+			waitEngine.until(driver, waitKey("url is", url), timeOut, ExpectedConditions.urlToBe(url));
 			return driver.getCurrentUrl();
 
 		} catch (TimeoutException e) {
@@ -536,36 +1088,111 @@ public class ElementUtil {
 
 	}
 
+	// wait for page state: several conditions checked by one script per poll
+	private static final String CONDITIONS_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "var conds = arguments[0], res = [];"
+			+ "for (var i = 0; i < conds.length; i++) {"
+			+ "  var c = conds[i], ok = null;"
+			+ "  switch (c[0]) {"
+			+ "  case 'titleIs': ok = document.title === c[1]; break;"
+			+ "  case 'titleContains': ok = document.title.indexOf(c[1]) >= 0; break;"
+			+ "  case 'urlContains': ok = location.href.indexOf(c[1]) >= 0; break;"
+			+ "  case 'urlIs': ok = location.href === c[1]; break;"
+			+ "  case 'documentReady': ok = document.readyState === 'complete'; break;"
+			+ "  case 'visible': ok = ocFind(c[2], c[3]).some(ocVisible); break;"
+			+ "  case 'count': ok = ocFind(c[2], c[3]).length === c[1]; break;"
+			+ "  }"
+			+ "  res.push(ok);"
+			+ "}"
+			+ "return [res, document.title, location.href];";
+
+	/**
+	 * waits until all the conditions are met, checking all of them with one
+	 * script per poll. Never throws on timeout, the result tells which conditions
+	 * passed.
+	 * 
+	 * @param conditions
+	 * @param timeOut
+	 * @return the last evaluation of the conditions
+	 */
+	public ConditionResult waitForConditions(PageConditions conditions, int timeOut) {
+		ConditionResult[] last = new ConditionResult[1];
+		try {
+			return waitEngine.until(driver, waitKey("conditions", conditions), Duration.ofSeconds(timeOut), d -> {
+				last[0] = evaluateConditions(conditions);
+				return last[0].isAllPassed() ? last[0] : null;
+			}, "waiting for " + conditions, List.of(NotFoundException.class, JavascriptException.class));
+		} catch (TimeoutException e) {
+			if (last[0] == null) {
+				List<Boolean> failed = Collections.nCopies(conditions.getConditions().size(), Boolean.FALSE);
+				return new ConditionResult(conditions.getConditions(), failed, null, null);
+			}
+			return last[0];
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ConditionResult evaluateConditions(PageConditions conditions) {
+		List<List<Object>> scriptArg = new ArrayList<List<Object>>();
+		for (PageConditions.Condition condition : conditions.getConditions()) {
+			Object[] args = condition.locator == null ? new Object[] { null, null } : JSLocator.toArgs(condition.locator);
+			// a locator js can not evaluate is checked from java below
+			String type = args == null ? "java" : condition.type;
+			scriptArg.add(Arrays.asList(type, condition.expected, args == null ? null : args[0],
+					args == null ? null : args[1]));
+		}
+		List<Object> result = (List<Object>) jsUtil.executeScript(CONDITIONS_SCRIPT, scriptArg);
+		List<Boolean> passed = new ArrayList<Boolean>((List<Boolean>) result.get(0));
+		for (int i = 0; i < passed.size(); i++) {
+			if (passed.get(i) == null) {
+				passed.set(i, evaluateInJava(conditions.getConditions().get(i)));
+			}
+		}
+		return new ConditionResult(conditions.getConditions(), passed, (String) result.get(1), (String) result.get(2));
+	}
+
+	private boolean evaluateInJava(PageConditions.Condition condition) {
+		List<WebElement> eleList = getElements(condition.locator);
+		if (PageConditions.COUNT.equals(condition.type)) {
+			return eleList.size() == (Integer) condition.expected;
+		}
+		for (WebElement e : eleList) {
+			if (e.isDisplayed()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	// wait for frame:
 	public void waitForFrameAndSwitchToIt(By frameLocator, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameLocator));
+		profiled(frameLocator, Phase.WAIT, () -> waitEngine.until(driver, waitKey("frame", frameLocator), timeOut,
+				ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameLocator)));
 	}
 
 	public void waitForFrameAndSwitchToIt(String frameNameOrID, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameNameOrID));
+		waitEngine.until(driver, waitKey("frame", frameNameOrID), timeOut,
+				ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameNameOrID));
 	}
 
 	public void waitForFrameAndSwitchToIt(int frameIndex, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameIndex));
+		waitEngine.until(driver, waitKey("frame", frameIndex), timeOut,
+				ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameIndex));
 	}
 
 	public void waitForFrameAndSwitchToIt(WebElement frameElement, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameElement));
+		waitEngine.until(driver, waitKey("frame", frameElement), timeOut,
+				ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameElement));
 	}
 
 	// wait for windows:
 
 	public boolean waitForWindow(int expectedNumberOfWindows, int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-
 		try {
-			return wait.until(ExpectedConditions.numberOfWindowsToBe(expectedNumberOfWindows));
+			return waitEngine.until(driver, waitKey("windows", expectedNumberOfWindows), timeOut,
+					ExpectedConditions.numberOfWindowsToBe(expectedNumberOfWindows));
 		} catch (Exception e) {
-			System.out.println("expectedNumberOfWindows are not correct");
+			log.warn("expectedNumberOfWindows are not correct");
 			return false;
 		}
 
@@ -588,8 +1215,8 @@ public class ElementUtil {
 	}
 
 	public boolean isPageLoaded(int timeOut) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-		String flag = wait.until(ExpectedConditions.jsReturnsValue("return document.readyState === 'complete'"))
+		String flag = waitEngine.until(driver, waitKey("page loaded", "document.readyState"), timeOut,
+				ExpectedConditions.jsReturnsValue("return document.readyState === 'complete'"))
 				.toString();
 		return Boolean.parseBoolean(flag);// true
 	}
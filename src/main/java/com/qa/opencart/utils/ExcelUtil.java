@@ -1,45 +1,331 @@
 package com.qa.opencart.utils;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.qa.opencart.events.TestDataLoadEvent;
+
+import FrameworkException.FrameworkException;
+
+/**
+ * Reads test data sheets from the xlsx file.
+ *
+ * A sheet is streamed once per JVM with the SAX (event) API instead of building
+ * the POI usermodel workbook, and kept as an immutable table. The cache key is
+ * file path + modification time + sheet name, so an edited file is read again
+ * and parallel data providers share one parsed table. Across runs the parsed
+ * sheet is reused from its binary snapshot, see TestDataSnapshot.
+ */
 public class ExcelUtil {
 
 	private static final String TEST_DATA_SHEET_PATH = "./src/test/resources/testdata/OpenCartTestData.xlsx";
-	private static Workbook book;
-	private static Sheet sheet;
+
+	private static final Map<String, TestDataTable> sheetCache = new ConcurrentHashMap<String, TestDataTable>();
 
 	public static Object[][] getTestData(String sheetName) {
-		Object data[][] = null;
+		return getTestData(Paths.get(TEST_DATA_SHEET_PATH), sheetName);
+	}
+
+	public static Object[][] getTestData(Path file, String sheetName) {
+		return getTable(file, sheetName).toArray();
+	}
+
+	/**
+	 * the parsed sheet without its header row, loaded on first use
+	 */
+	public static TestDataTable getTable(Path file, String sheetName) {
+		Path path = file.toAbsolutePath().normalize();
+		TestDataLoadEvent event = new TestDataLoadEvent();
+		event.begin();
+		// memory, snapshot or parsed, for the load event
+		String[] source = { "memory" };
+		TestDataTable table = null;
+		RuntimeException error = null;
 		try {
-			FileInputStream ip = new FileInputStream(TEST_DATA_SHEET_PATH);
-			book = WorkbookFactory.create(ip);
-			sheet = book.getSheet(sheetName);
+			long lastModified;
+			try {
+				lastModified = Files.getLastModifiedTime(path).toMillis();
+			} catch (IOException e) {
+				throw new FrameworkException("===TEST DATA FILE NOT FOUND=== : " + path);
+			}
+			table = sheetCache.computeIfAbsent(path + "|" + lastModified + "|" + sheetName, key -> {
+				source[0] = "snapshot";
+				return TestDataSnapshot.load(path, sheetName, () -> {
+					source[0] = "parsed";
+					return readSheet(path, sheetName);
+				});
+			});
+			return table;
+		} catch (RuntimeException e) {
+			error = e;
+			throw e;
+		} finally {
+			event.finish(path.toString(), sheetName, table == null ? 0 : table.getRowCount(), source[0], error);
+		}
+	}
+
+	/**
+	 * forgets the parsed sheets of the file, in memory and their snapshots; the
+	 * next call parses it again
+	 */
+	public static void evict(Path file) {
+		String prefix = file.toAbsolutePath().normalize() + "|";
+		for (String key : sheetCache.keySet()) {
+			if (key.startsWith(prefix) && sheetCache.remove(key) != null) {
+				// key: path|modification time|sheet name
+				String sheetName = key.substring(prefix.length()).split("\\|", 2)[1];
+				TestDataSnapshot.delete(file, sheetName);
+			}
+		}
+	}
+
+	/**
+	 * sheet names of the workbook, in workbook order
+	 */
+	public static List<String> getSheetNames(Path file) {
+		OPCPackage pkg = null;
+		try {
+			pkg = OPCPackage.open(file.toString(), PackageAccess.READ);
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+			List<String> names = new ArrayList<String>();
+			while (sheets.hasNext()) {
+				sheets.next().close();
+				names.add(sheets.getSheetName());
+			}
+			return names;
+		} catch (IOException | OpenXML4JException e) {
+			throw new FrameworkException("===TEST DATA FILE COULD NOT BE READ=== : " + file + " " + e);
+		} finally {
+			if (pkg != null) {
+				pkg.revert();
+			}
+		}
+	}
+
+	private static TestDataTable readSheet(Path path, String sheetName) {
+		OPCPackage pkg = null;
+		try {
+			pkg = OPCPackage.open(path.toString(), PackageAccess.READ);
+			XSSFReader reader = new XSSFReader(pkg);
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			while (sheets.hasNext()) {
+				InputStream sheetData = sheets.next();
+				try {
+					if (sheets.getSheetName().equals(sheetName)) {
+						SheetHandler handler = new SheetHandler(new ReadOnlySharedStringsTable(pkg), reader);
+						XMLReader parser = newParser();
+						parser.setContentHandler(handler);
+						parser.parse(new InputSource(sheetData));
+						return handler.toTable();
+					}
+				} finally {
+					sheetData.close();
+				}
+			}
+		} catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new FrameworkException("===TEST DATA SHEET COULD NOT BE READ=== : " + path + " [" + sheetName + "] " + e);
+		} finally {
+			if (pkg != null) {
+				pkg.revert();
+			}
+		}
+		throw new FrameworkException("===INVALID SHEET NAME=== : " + sheetName);
+	}
+
+	private static XMLReader newParser() throws SAXException, ParserConfigurationException {
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newSAXParser().getXMLReader();
+	}
+
+	/**
+	 * collects the cell values of one sheet, each value is the same text
+	 * Cell.toString gives in the usermodel
+	 */
+	private static class SheetHandler extends DefaultHandler {
+		private final ReadOnlySharedStringsTable sharedStrings;
+		private final XSSFReader reader;
+		private StylesTable styles;
 
-			data = new Object[sheet.getLastRowNum()][sheet.getRow(0).getLastCellNum()];
+		private final List<String[]> rows = new ArrayList<String[]>();
+		private int headerCellCount;
 
-			for (int i = 0; i < sheet.getLastRowNum(); i++) {
-				for (int j = 0; j < sheet.getRow(0).getLastCellNum(); j++) {
-					data[i][j] = sheet.getRow(i + 1).getCell(j).toString();
+		private List<String> currentRow;
+		private int rowIndex = -1;
+		private int columnIndex;
+		private String cellType;
+		private String cellStyle;
+		private String formula;
+		private final StringBuilder text = new StringBuilder();
+		private boolean collecting;
+
+		SheetHandler(ReadOnlySharedStringsTable sharedStrings, XSSFReader reader) {
+			this.sharedStrings = sharedStrings;
+			this.reader = reader;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attrs) {
+			switch (localName) {
+			case "row":
+				String r = attrs.getValue("r");
+				rowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+				currentRow = new ArrayList<String>();
+				columnIndex = -1;
+				break;
+			case "c":
+				String ref = attrs.getValue("r");
+				columnIndex = ref == null ? columnIndex + 1 : columnOf(ref);
+				cellType = attrs.getValue("t");
+				cellStyle = attrs.getValue("s");
+				formula = null;
+				text.setLength(0);
+				break;
+			case "v":
+			case "f":
+				collecting = true;
+				text.setLength(0);
+				break;
+			case "t":
+				// inline string, rich text runs are appended
+				collecting = true;
+				break;
+			default:
+				break;
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (collecting) {
+				text.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			switch (localName) {
+			case "f":
+				formula = text.toString();
+				collecting = false;
+				break;
+			case "v":
+			case "t":
+				collecting = false;
+				break;
+			case "c":
+				setCell(columnIndex, formula != null ? formula : cellValue(text.toString()));
+				break;
+			case "row":
+				endRow();
+				break;
+			default:
+				break;
+			}
+		}
+
+		private String cellValue(String raw) {
+			if (cellType == null || cellType.equals("n")) {
+				return raw.isEmpty() ? "" : numericValue(Double.parseDouble(raw));
+			}
+			switch (cellType) {
+			case "s":
+				return sharedStrings.getEntryAt(Integer.parseInt(raw));
+			case "b":
+				return raw.equals("1") ? "TRUE" : "FALSE";
+			default:
+				// str, inlineStr, e
+				return raw;
+			}
+		}
+
+		private String numericValue(double value) {
+			if (cellStyle != null) {
+				XSSFCellStyle style = getStyles().getStyleAt(Integer.parseInt(cellStyle));
+				if (DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())
+						&& DateUtil.isValidExcelDate(value)) {
+					return new SimpleDateFormat("dd-MMM-yyyy").format(DateUtil.getJavaDate(value));
 				}
 			}
+			return String.valueOf(value);
+		}
 
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (InvalidFormatException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
+		private StylesTable getStyles() {
+			if (styles == null) {
+				try {
+					styles = reader.getStylesTable();
+				} catch (IOException | OpenXML4JException e) {
+					throw new FrameworkException("===STYLES COULD NOT BE READ=== : " + e);
+				}
+			}
+			return styles;
 		}
 
-		return data;
+		private void setCell(int column, String value) {
+			while (currentRow.size() <= column) {
+				currentRow.add("");
+			}
+			currentRow.set(column, value);
+		}
 
+		private void endRow() {
+			if (rowIndex == 0) {
+				headerCellCount = currentRow.size();
+				return;
+			}
+			while (rows.size() < rowIndex - 1) {
+				rows.add(null);
+			}
+			rows.add(currentRow.toArray(new String[0]));
+		}
+
+		TestDataTable toTable() {
+			// same shape as before: header cell count columns, a row per data row
+			List<String[]> table = new ArrayList<String[]>(rows.size());
+			for (String[] row : rows) {
+				String[] cells = new String[headerCellCount];
+				Arrays.fill(cells, "");
+				if (row != null) {
+					System.arraycopy(row, 0, cells, 0, Math.min(row.length, headerCellCount));
+				}
+				table.add(cells);
+			}
+			return new TestDataTable(table, headerCellCount);
+		}
+
+		private static int columnOf(String cellRef) {
+			int column = 0;
+			for (int i = 0; i < cellRef.length() && Character.isLetter(cellRef.charAt(i)); i++) {
+				column = column * 26 + (Character.toUpperCase(cellRef.charAt(i)) - 'A' + 1);
+			}
+			return column - 1;
+		}
 	}
 
 }
@@ -0,0 +1,183 @@
+package com.qa.opencart.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
+/**
+ * Asynchronous, batched step logging for the framework.
+ *
+ * Log calls only check the level and put the event (pattern + arguments, not a
+ * built string) into a lock free buffer owned by the calling thread. A
+ * background writer drains all the buffers in batches into Log4j2, so test
+ * threads never block on console or file I/O.
+ *
+ * Report steps ({@link #step}) are also kept per test thread and handed to
+ * ChainTest and Allure in one batch when the test method finishes, see
+ * {@link #drainReportSteps()}.
+ *
+ * Messages use Log4j "{}" placeholders: log.info("search key: {}", searchKey).
+ * Arguments are formatted later on the writer thread, so pass values that are
+ * not modified afterwards.
+ */
+public final class FrameworkLogger {
+
+	private static final long FLUSH_INTERVAL_MILLIS = 20;
+
+	// buffers of threads that died are dropped by the writer once drained
+	private static final Queue<ThreadBuffer> buffers = new ConcurrentLinkedQueue<ThreadBuffer>();
+	private static final ThreadLocal<ThreadBuffer> threadBuffer = ThreadLocal.withInitial(() -> {
+		ThreadBuffer buffer = new ThreadBuffer();
+		buffers.add(buffer);
+		return buffer;
+	});
+	private static final ThreadLocal<List<LogEvent>> reportSteps = ThreadLocal.withInitial(ArrayList::new);
+
+	// set by the shutdown hook, later events are written by the calling thread
+	private static volatile boolean shuttingDown;
+
+	static {
+		startWriter();
+	}
+
+	private final Logger logger;
+
+	private static class ThreadBuffer {
+		final Thread owner = Thread.currentThread();
+		final Queue<LogEvent> events = new ConcurrentLinkedQueue<LogEvent>();
+	}
+
+	private static class LogEvent {
+		final Logger logger;
+		final Level level;
+		final String threadName;
+		final String pattern;
+		final Object[] args;
+		final Throwable error;
+
+		LogEvent(Logger logger, Level level, String pattern, Object[] args, Throwable error) {
+			this.logger = logger;
+			this.level = level;
+			this.threadName = Thread.currentThread().getName();
+			this.pattern = pattern;
+			this.args = args;
+			this.error = error;
+		}
+
+		String format() {
+			return ParameterizedMessage.format(pattern, args);
+		}
+	}
+
+	private FrameworkLogger(Class<?> source) {
+		this.logger = LogManager.getLogger(source);
+	}
+
+	public static FrameworkLogger getLogger(Class<?> source) {
+		return new FrameworkLogger(source);
+	}
+
+	public void debug(String pattern, Object... args) {
+		if (logger.isDebugEnabled()) {
+			enqueue(new LogEvent(logger, Level.DEBUG, pattern, args, null));
+		}
+	}
+
+	public void info(String pattern, Object... args) {
+		if (logger.isInfoEnabled()) {
+			enqueue(new LogEvent(logger, Level.INFO, pattern, args, null));
+		}
+	}
+
+	public void warn(String pattern, Object... args) {
+		if (logger.isWarnEnabled()) {
+			enqueue(new LogEvent(logger, Level.WARN, pattern, args, null));
+		}
+	}
+
+	public void error(String message, Throwable error) {
+		if (logger.isErrorEnabled()) {
+			enqueue(new LogEvent(logger, Level.ERROR, message, new Object[0], error));
+		}
+	}
+
+	/**
+	 * logs at info level and also records the message as a report step of the
+	 * current test (ChainTest log line and Allure attachment)
+	 */
+	public void step(String pattern, Object... args) {
+		LogEvent event = new LogEvent(logger, Level.INFO, pattern, args, null);
+		reportSteps.get().add(event);
+		if (logger.isInfoEnabled()) {
+			enqueue(event);
+		}
+	}
+
+	private static void enqueue(LogEvent event) {
+		threadBuffer.get().events.offer(event);
+		if (shuttingDown) {
+			flush();
+		}
+	}
+
+	/**
+	 * report steps of the current thread since the last drain, formatted. Called
+	 * on the test thread when a test method finishes.
+	 */
+	public static List<String> drainReportSteps() {
+		List<LogEvent> events = reportSteps.get();
+		List<String> steps = new ArrayList<String>(events.size());
+		for (LogEvent event : events) {
+			steps.add(event.format());
+		}
+		events.clear();
+		return steps;
+	}
+
+	/**
+	 * writes everything buffered so far, e.g. before the jvm exits
+	 */
+	public static synchronized void flush() {
+		for (Iterator<ThreadBuffer> it = buffers.iterator(); it.hasNext();) {
+			ThreadBuffer buffer = it.next();
+			// checked before draining, a dead thread adds nothing after it
+			boolean ownerDead = !buffer.owner.isAlive();
+			LogEvent event;
+			while ((event = buffer.events.poll()) != null) {
+				write(event);
+			}
+			if (ownerDead) {
+				it.remove();
+			}
+		}
+	}
+
+	private static void write(LogEvent event) {
+		event.logger.log(event.level, "[{}] {}", event.threadName, event.format(), event.error);
+	}
+
+	private static void startWriter() {
+		Thread t = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				flush();
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS));
+			}
+		}, "framework-log-writer");
+		t.setDaemon(true);
+		t.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			shuttingDown = true;
+			flush();
+		}, "framework-log-flush"));
+	}
+
+}
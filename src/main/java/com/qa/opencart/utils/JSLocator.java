@@ -0,0 +1,77 @@
+package com.qa.opencart.utils;
+
+import java.util.Set;
+
+import org.openqa.selenium.By;
+
+/**
+ * Translates Selenium locators into a javascript lookup, so a script can find
+ * and read all matching elements inside the browser in one executeScript call.
+ *
+ * Only the standard By strategies (id, name, class name, css, xpath, link
+ * text, partial link text, tag name) can be translated, for anything else
+ * {@link #toArgs(By)} returns null and the caller has to use findElements.
+ */
+public final class JSLocator {
+
+	private static final Set<String> SUPPORTED = Set.of("id", "name", "class name", "css selector", "xpath",
+			"link text", "partial link text", "tag name");
+
+	/**
+	 * js function: ocFind(using, value) returns a plain array of the matching
+	 * elements in document order
+	 */
+	public static final String FIND_FUNCTION =
+			"function ocFind(using, value) {"
+			+ "  var d = document, list;"
+			+ "  switch (using) {"
+			+ "  case 'id': list = d.querySelectorAll('#' + CSS.escape(value)); break;"
+			+ "  case 'name': list = d.getElementsByName(value); break;"
+			+ "  case 'class name': list = d.getElementsByClassName(value); break;"
+			+ "  case 'css selector': list = d.querySelectorAll(value); break;"
+			+ "  case 'tag name': list = d.getElementsByTagName(value); break;"
+			+ "  case 'xpath':"
+			+ "    var snap = d.evaluate(value, d, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), res = [];"
+			+ "    for (var i = 0; i < snap.snapshotLength; i++) { res.push(snap.snapshotItem(i)); }"
+			+ "    return res;"
+			+ "  case 'link text':"
+			+ "  case 'partial link text':"
+			+ "    return Array.prototype.filter.call(d.getElementsByTagName('a'), function(a) {"
+			+ "      var t = (a.innerText || '').trim();"
+			+ "      return using === 'link text' ? t === value : t.indexOf(value) >= 0; });"
+			+ "  }"
+			+ "  return Array.prototype.slice.call(list);"
+			+ "}"
+			+ "function ocVisible(e) {"
+			+ "  var s = window.getComputedStyle(e);"
+			+ "  return s.display !== 'none' && s.visibility !== 'hidden' && s.visibility !== 'collapse'"
+			+ "    && (e.offsetWidth > 0 || e.offsetHeight > 0 || e.getClientRects().length > 0);"
+			+ "}"
+			+ "function ocText(e) {"
+			+ "  return ocVisible(e) ? (e.innerText || '').replace(/\\u00a0/g, ' ').trim() : '';"
+			+ "}";
+
+	private JSLocator() {
+	}
+
+	/**
+	 * @param locator
+	 * @return {using, value} script arguments for the locator, or null when the
+	 *         locator can not be evaluated in javascript
+	 */
+	public static Object[] toArgs(By locator) {
+		if (!(locator instanceof By.Remotable)) {
+			return null;
+		}
+		By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+		if (!SUPPORTED.contains(params.using()) || !(params.value() instanceof String)) {
+			return null;
+		}
+		return new Object[] { params.using(), params.value() };
+	}
+
+	public static boolean isSupported(By locator) {
+		return toArgs(locator) != null;
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.qa.opencart.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with logarithmic buckets: every power of two is
+ * split into 8 buckets, so a percentile is off by at most 12.5% whatever the
+ * range (nanoseconds to hours). Recording is a few atomic increments, cheap
+ * enough for every element lookup.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		totalNanos.addAndGet(value);
+		maxNanos.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * adds all the values recorded by the other histogram to this one
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long c = other.counts.get(i);
+			if (c > 0) {
+				counts.addAndGet(i, c);
+			}
+		}
+		count.addAndGet(other.count.get());
+		totalNanos.addAndGet(other.totalNanos.get());
+		maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+	}
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exp - SUB_BUCKET_BITS);
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return lowerBound(bucket) + (1L << (exp - SUB_BUCKET_BITS)) - 1;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public double getTotalMillis() {
+		return totalNanos.get() / 1_000_000.0;
+	}
+
+	public double getMeanMillis() {
+		long n = count.get();
+		return n == 0 ? 0 : totalNanos.get() / 1_000_000.0 / n;
+	}
+
+	/**
+	 * @param percentile 0..100
+	 * @return the value below which the given share of the recordings falls
+	 *         (middle of its bucket, never above the max), 0 when empty
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				long middle = lowerBound(i) + (upperBound(i) - lowerBound(i)) / 2;
+				return Math.min(middle, maxNanos.get());
+			}
+		}
+		return maxNanos.get();
+	}
+
+	public double getPercentileMillis(double percentile) {
+		return getValueAtPercentile(percentile) / 1_000_000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d total=%.1fms p50=%.2fms p99=%.2fms max=%.2fms", getCount(), getTotalMillis(),
+				getPercentileMillis(50), getPercentileMillis(99), getMaxNanos() / 1_000_000.0);
+	}
+
+}
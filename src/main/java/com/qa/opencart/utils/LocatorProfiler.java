@@ -0,0 +1,225 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openqa.selenium.By;
+
+import com.qa.opencart.factory.ConfigService;
+
+/**
+ * Time spent by ElementUtil on every locator of every page, split in find
+ * (lookups, including the bulk js reads), wait (explicit waits on the locator)
+ * and action (click, type, read on the found element), each in a
+ * LatencyHistogram.
+ *
+ * With locator.probe=true XPath locators are probed once per page: the browser
+ * looks for a css or id selector matching the same elements and times both, so
+ * the report can point at the xpaths worth rewriting. The probe runs on the
+ * test thread, so it is off by default.
+ *
+ * locator.profile=false (config or -D) turns the profiling off.
+ */
+public class LocatorProfiler {
+
+	public enum Phase {
+		FIND, WAIT, ACTION
+	}
+
+	// a css equivalent is reported when the xpath takes this much longer
+	private static final double SLOW_XPATH_RATIO = 1.5;
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(LocatorProfiler.class);
+
+	private static volatile LocatorProfiler instance;
+
+	private final boolean enabled;
+	private final boolean probeEnabled;
+	private final Map<String, LocatorStats> statsByKey = new ConcurrentHashMap<String, LocatorStats>();
+
+	public static LocatorProfiler getInstance() {
+		if (instance == null) {
+			synchronized (LocatorProfiler.class) {
+				if (instance == null) {
+					ConfigService config = ConfigService.getInstance();
+					instance = new LocatorProfiler(Boolean.parseBoolean(config.get("locator.profile", "true")),
+							Boolean.parseBoolean(config.get("locator.probe", "false")));
+				}
+			}
+		}
+		return instance;
+	}
+
+	LocatorProfiler(boolean enabled, boolean probeEnabled) {
+		this.enabled = enabled;
+		this.probeEnabled = enabled && probeEnabled;
+	}
+
+	/**
+	 * css or id selector matching the same elements as an xpath, with the time
+	 * the browser needs for each
+	 */
+	public static class Equivalent {
+		private final String selector;
+		private final double xpathMicros;
+		private final double cssMicros;
+
+		Equivalent(String selector, double xpathMicros, double cssMicros) {
+			this.selector = selector;
+			this.xpathMicros = xpathMicros;
+			this.cssMicros = cssMicros;
+		}
+
+		public String getSelector() {
+			return selector;
+		}
+
+		public double getXpathMicros() {
+			return xpathMicros;
+		}
+
+		public double getCssMicros() {
+			return cssMicros;
+		}
+
+		public boolean isFaster() {
+			return xpathMicros >= cssMicros * SLOW_XPATH_RATIO;
+		}
+	}
+
+	/**
+	 * histograms of one locator on one page
+	 */
+	public static class LocatorStats {
+		private final String page;
+		private final String locator;
+		private final Map<Phase, LatencyHistogram> histograms = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+		private final AtomicBoolean probed = new AtomicBoolean();
+		private volatile Equivalent equivalent;
+
+		LocatorStats(String page, String locator) {
+			this.page = page;
+			this.locator = locator;
+			for (Phase phase : Phase.values()) {
+				histograms.put(phase, new LatencyHistogram());
+			}
+		}
+
+		public String getPage() {
+			return page;
+		}
+
+		public String getLocator() {
+			return locator;
+		}
+
+		public LatencyHistogram getHistogram(Phase phase) {
+			return histograms.get(phase);
+		}
+
+		public double getTotalMillis() {
+			double total = 0;
+			for (LatencyHistogram histogram : histograms.values()) {
+				total += histogram.getTotalMillis();
+			}
+			return total;
+		}
+
+		public Equivalent getEquivalent() {
+			return equivalent;
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void record(String page, By locator, Phase phase, long nanos) {
+		stats(page, locator).histograms.get(phase).record(nanos);
+	}
+
+	/**
+	 * true once per xpath locator and page, when the probe is on
+	 */
+	public boolean shouldProbe(String page, By locator) {
+		return probeEnabled && locator instanceof By.ByXPath && stats(page, locator).probed.compareAndSet(false, true);
+	}
+
+	public void setEquivalent(String page, By locator, String selector, double xpathMicros, double cssMicros) {
+		Equivalent equivalent = new Equivalent(selector, xpathMicros, cssMicros);
+		stats(page, locator).equivalent = equivalent;
+		if (equivalent.isFaster()) {
+			log.debug("{} on {} can be {} ({}us vs {}us in the browser)", locator, page, selector,
+					String.format("%.1f", xpathMicros), String.format("%.1f", cssMicros));
+		}
+	}
+
+	private LocatorStats stats(String page, By locator) {
+		String name = String.valueOf(locator);
+		return statsByKey.computeIfAbsent(page + " | " + name, k -> new LocatorStats(page, name));
+	}
+
+	/**
+	 * snapshot of the statistics, key is page | locator
+	 */
+	public Map<String, LocatorStats> getStatistics() {
+		return Map.copyOf(statsByKey);
+	}
+
+	/**
+	 * locators ranked by the total time spent on them, then the xpaths that have
+	 * a faster css or id equivalent on the same page
+	 */
+	public String report() {
+		List<LocatorStats> all = new ArrayList<LocatorStats>(statsByKey.values());
+		all.sort(Comparator.comparingDouble(LocatorStats::getTotalMillis).reversed());
+		String nl = System.lineSeparator();
+		StringBuilder sb = new StringBuilder("===locator profile===").append(nl);
+		sb.append(String.format("%-20s %-70s %10s  %-30s %-30s %-30s", "page", "locator", "total", "find n/p50/p99",
+				"wait n/p50/p99", "action n/p50/p99")).append(nl);
+		for (LocatorStats stats : all) {
+			sb.append(String.format("%-20s %-70s %8.1fms  %-30s %-30s %-30s", stats.page, stats.locator,
+					stats.getTotalMillis(), phase(stats, Phase.FIND), phase(stats, Phase.WAIT),
+					phase(stats, Phase.ACTION))).append(nl);
+		}
+		sb.append("===slow xpath locators with a faster css/id equivalent===").append(nl);
+		for (LocatorStats stats : all) {
+			Equivalent equivalent = stats.equivalent;
+			if (equivalent != null && equivalent.isFaster()) {
+				sb.append(String.format("%-20s %-70s -> %s (browser: xpath %.1fus, css %.1fus)", stats.page,
+						stats.locator, equivalent.selector, equivalent.xpathMicros, equivalent.cssMicros)).append(nl);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String phase(LocatorStats stats, Phase phase) {
+		LatencyHistogram histogram = stats.histograms.get(phase);
+		if (histogram.getCount() == 0) {
+			return "-";
+		}
+		return String.format("%d/%.1fms/%.1fms", histogram.getCount(), histogram.getPercentileMillis(50),
+				histogram.getPercentileMillis(99));
+	}
+
+	public void writeReport(Path file) {
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Files.writeString(file, report(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.warn("locator profile could not be written to {} : {}", file, e.toString());
+		}
+	}
+
+}
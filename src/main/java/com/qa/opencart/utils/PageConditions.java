@@ -0,0 +1,151 @@
+package com.qa.opencart.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+
+/**
+ * A set of page state conditions (title, url, element visible, element count,
+ * document ready) checked together by one script on each poll, see
+ * ElementUtil.waitForConditions.
+ *
+ * <pre>
+ * ConditionResult result = eleUtil.waitForConditions(
+ * 		new PageConditions().titleIs(HOME_PAGE_TITLE).urlContains(HOME_PAGE_FRACTION_URL), DEFAULT_TIMEOUT);
+ * </pre>
+ */
+public class PageConditions {
+
+	static final String TITLE_IS = "titleIs";
+	static final String TITLE_CONTAINS = "titleContains";
+	static final String URL_CONTAINS = "urlContains";
+	static final String URL_IS = "urlIs";
+	static final String DOCUMENT_READY = "documentReady";
+	static final String VISIBLE = "visible";
+	static final String COUNT = "count";
+
+	/**
+	 * one condition: type, expected value and locator (only for element
+	 * conditions)
+	 */
+	static class Condition {
+		final String type;
+		final Object expected;
+		final By locator;
+		final String description;
+
+		Condition(String type, Object expected, By locator, String description) {
+			this.type = type;
+			this.expected = expected;
+			this.locator = locator;
+			this.description = description;
+		}
+	}
+
+	private final List<Condition> conditions = new ArrayList<Condition>();
+
+	public PageConditions titleIs(String title) {
+		return add(new Condition(TITLE_IS, title, null, "title is: " + title));
+	}
+
+	public PageConditions titleContains(String fractionTitle) {
+		return add(new Condition(TITLE_CONTAINS, fractionTitle, null, "title contains: " + fractionTitle));
+	}
+
+	public PageConditions urlContains(String fractionURL) {
+		return add(new Condition(URL_CONTAINS, fractionURL, null, "url contains: " + fractionURL));
+	}
+
+	public PageConditions urlIs(String url) {
+		return add(new Condition(URL_IS, url, null, "url is: " + url));
+	}
+
+	public PageConditions documentReady() {
+		return add(new Condition(DOCUMENT_READY, null, null, "document.readyState is complete"));
+	}
+
+	public PageConditions elementVisible(By locator) {
+		return add(new Condition(VISIBLE, null, locator, "visible: " + locator));
+	}
+
+	public PageConditions elementCount(By locator, int expCount) {
+		return add(new Condition(COUNT, expCount, locator, "count " + expCount + ": " + locator));
+	}
+
+	private PageConditions add(Condition condition) {
+		conditions.add(condition);
+		return this;
+	}
+
+	List<Condition> getConditions() {
+		return Collections.unmodifiableList(conditions);
+	}
+
+	@Override
+	public String toString() {
+		List<String> descriptions = new ArrayList<String>();
+		for (Condition condition : conditions) {
+			descriptions.add(condition.description);
+		}
+		return String.join(" AND ", descriptions);
+	}
+
+	/**
+	 * outcome of a composite wait: which conditions passed, plus the title and url
+	 * read in the same round trip
+	 */
+	public static class ConditionResult {
+		private final Map<String, Boolean> results;
+		private final List<Boolean> passed;
+		private final String title;
+		private final String url;
+
+		ConditionResult(List<Condition> conditions, List<Boolean> passed, String title, String url) {
+			Map<String, Boolean> results = new LinkedHashMap<String, Boolean>();
+			for (int i = 0; i < conditions.size(); i++) {
+				results.put(conditions.get(i).description, passed.get(i));
+			}
+			this.results = Collections.unmodifiableMap(results);
+			this.passed = List.copyOf(passed);
+			this.title = title;
+			this.url = url;
+		}
+
+		public boolean isAllPassed() {
+			return !passed.contains(Boolean.FALSE);
+		}
+
+		/**
+		 * @param index position of the condition in the order it was added
+		 */
+		public boolean isPassed(int index) {
+			return passed.get(index);
+		}
+
+		/**
+		 * condition description to passed/failed, in the order the conditions were
+		 * added
+		 */
+		public Map<String, Boolean> getResults() {
+			return results;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		@Override
+		public String toString() {
+			return results + " title=" + title + " url=" + url;
+		}
+	}
+
+}
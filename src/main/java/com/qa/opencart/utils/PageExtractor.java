@@ -0,0 +1,242 @@
+package com.qa.opencart.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Declarative one shot extraction of page data.
+ *
+ * A page object describes the fields it needs (text, count, key/value list,
+ * indexed values), the extractor waits once for the page to be ready and then
+ * reads every field in a single script evaluation. The result is cached until
+ * the browser navigates to another url.
+ *
+ * <pre>
+ * new PageExtractor(driver).waitFor(header, DEFAULT_TIMEOUT)
+ * 		.text("productheader", header)
+ * 		.count("productimages", images)
+ * 		.keyValues(metaData, ":");
+ * </pre>
+ */
+public class PageExtractor {
+
+	private static final String EXTRACT_SCRIPT = JSLocator.FIND_FUNCTION
+			+ "var locs = arguments[0], out = [];"
+			+ "for (var i = 0; i < locs.length; i++) {"
+			+ "  out.push(ocFind(locs[i][0], locs[i][1]).filter(ocVisible).map(ocText));"
+			+ "}"
+			+ "return out;";
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(PageExtractor.class);
+
+	private enum FieldType {
+		TEXT, COUNT, KEY_VALUES, TEXT_AT, VALUE_AT
+	}
+
+	private static class Field {
+		private final String name;
+		private final FieldType type;
+		private final By locator;
+		private final int index;
+		private final String separator;
+
+		Field(String name, FieldType type, By locator, int index, String separator) {
+			this.name = name;
+			this.type = type;
+			this.locator = locator;
+			this.index = index;
+			this.separator = separator == null ? null : Pattern.quote(separator);
+		}
+	}
+
+	private WebDriver driver;
+	private ElementUtil eleUtil;
+	private JavaScriptUtil jsUtil;
+
+	private final List<Field> fields = new ArrayList<Field>();
+	private final List<By> locators = new ArrayList<By>();
+	private By readyLocator;
+	private int readyTimeOut;
+	private final Map<By, Integer> allVisibleWaits = new LinkedHashMap<By, Integer>();
+
+	private Map<String, String> cachedResult;
+	private String cachedURL;
+
+	public PageExtractor(WebDriver driver) {
+		this.driver = driver;
+		eleUtil = new ElementUtil(driver);
+		jsUtil = new JavaScriptUtil(driver);
+	}
+
+	/**
+	 * the single readiness wait done before the extraction
+	 */
+	public PageExtractor waitFor(By locator, int timeOut) {
+		this.readyLocator = locator;
+		this.readyTimeOut = timeOut;
+		return this;
+	}
+
+	/**
+	 * also waits, before the extraction, until all the elements of the locator
+	 * are visible, e.g. a gallery that is counted
+	 */
+	public PageExtractor waitForAllVisible(By locator, int timeOut) {
+		allVisibleWaits.put(locator, timeOut);
+		return this;
+	}
+
+	/**
+	 * text of the first visible element
+	 */
+	public PageExtractor text(String name, By locator) {
+		return addField(new Field(name, FieldType.TEXT, locator, 0, null));
+	}
+
+	/**
+	 * number of visible elements
+	 */
+	public PageExtractor count(String name, By locator) {
+		return addField(new Field(name, FieldType.COUNT, locator, 0, null));
+	}
+
+	/**
+	 * every visible element is a "key: value" line, each line becomes one entry
+	 */
+	public PageExtractor keyValues(By locator, String separator) {
+		return addField(new Field(null, FieldType.KEY_VALUES, locator, 0, separator));
+	}
+
+	/**
+	 * text of the visible element at the given index
+	 */
+	public PageExtractor textAt(String name, By locator, int index) {
+		return addField(new Field(name, FieldType.TEXT_AT, locator, index, null));
+	}
+
+	/**
+	 * value part of the "label: value" text of the visible element at the given
+	 * index
+	 */
+	public PageExtractor valueAt(String name, By locator, int index, String separator) {
+		return addField(new Field(name, FieldType.VALUE_AT, locator, index, separator));
+	}
+
+	private PageExtractor addField(Field field) {
+		fields.add(field);
+		if (!locators.contains(field.locator)) {
+			locators.add(field.locator);
+		}
+		return this;
+	}
+
+	/**
+	 * extracts all the described fields, or returns the cached result when the
+	 * browser is still on the same url
+	 *
+	 * @return field name to value, sorted by name
+	 */
+	public Map<String, String> extract() {
+		String currentURL = driver.getCurrentUrl();
+		if (cachedResult != null && currentURL.equals(cachedURL)) {
+			return cachedResult;
+		}
+		if (readyLocator != null) {
+			eleUtil.waitForElementVisible(readyLocator, readyTimeOut);
+		}
+		allVisibleWaits.forEach(eleUtil::waitForAllElementsVisible);
+		cachedResult = parse(readTexts());
+		cachedURL = currentURL;
+		return cachedResult;
+	}
+
+	/**
+	 * drops the cached result, the next extract reads the page again
+	 */
+	public void invalidate() {
+		cachedResult = null;
+		cachedURL = null;
+	}
+
+	/**
+	 * builds the field map from the visible texts of each locator, in the order
+	 * the locators were first described
+	 */
+	public Map<String, String> parse(List<List<String>> textsByLocator) {
+		Map<String, String> result = new TreeMap<String, String>();
+		for (Field field : fields) {
+			List<String> texts = textsByLocator.get(locators.indexOf(field.locator));
+			switch (field.type) {
+			case TEXT:
+				if (!texts.isEmpty()) {
+					result.put(field.name, texts.get(0));
+				}
+				break;
+			case COUNT:
+				result.put(field.name, String.valueOf(texts.size()));
+				break;
+			case KEY_VALUES:
+				for (String text : texts) {
+					String keyValue[] = text.split(field.separator);
+					result.put(keyValue[0].trim(), keyValue[1].trim());
+				}
+				break;
+			case TEXT_AT:
+				if (texts.size() > field.index) {
+					result.put(field.name, texts.get(field.index));
+				}
+				break;
+			case VALUE_AT:
+				if (texts.size() > field.index) {
+					result.put(field.name, texts.get(field.index).split(field.separator)[1].trim());
+				}
+				break;
+			}
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<List<String>> readTexts() {
+		List<Object[]> args = new ArrayList<Object[]>();
+		for (By locator : locators) {
+			args.add(JSLocator.toArgs(locator));
+		}
+		if (!args.contains(null)) {
+			try {
+				return (List<List<String>>) jsUtil.executeScript(EXTRACT_SCRIPT, toScriptArg(args));
+			} catch (JavascriptException e) {
+				log.warn("page extraction script failed, reading element by element: {}", e.getMessage());
+			}
+		}
+		List<List<String>> textsByLocator = new ArrayList<List<String>>();
+		for (By locator : locators) {
+			List<String> texts = new ArrayList<String>();
+			for (WebElement e : eleUtil.getElements(locator)) {
+				if (e.isDisplayed()) {
+					texts.add(e.getText());
+				}
+			}
+			textsByLocator.add(texts);
+		}
+		return textsByLocator;
+	}
+
+	private static List<List<Object>> toScriptArg(List<Object[]> args) {
+		List<List<Object>> scriptArg = new ArrayList<List<Object>>();
+		for (Object[] arg : args) {
+			scriptArg.add(List.of(arg));
+		}
+		return scriptArg;
+	}
+
+}
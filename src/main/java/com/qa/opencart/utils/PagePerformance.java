@@ -0,0 +1,245 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.json.Json;
+
+import com.qa.opencart.factory.ConfigService;
+
+/**
+ * Front end timings of every page the functional tests open, aggregated per
+ * page type (page object class): navigation timing (ttfb, domContentLoaded,
+ * load), largest contentful paint, long tasks and resource timing. The page
+ * actions that navigate hand in one sample per loaded document, see
+ * ElementUtil.capturePagePerformance.
+ *
+ * Budgets, in ms (bytes and count for bytes and resources):
+ * pageperf.budget.&lt;metric&gt; for every page and
+ * pageperf.budget.&lt;Page&gt;.&lt;metric&gt; for one page type, metric one of
+ * ttfb, domContentLoaded, load, lcp, longTasks, resources, bytes.
+ * pageperf.budget.mode: warn (default) logs an exceeded budget, soft fails the
+ * test when it is done, hard fails it right at the page transition.
+ * pageperf.enabled=false turns the capture off.
+ */
+public class PagePerformance {
+
+	public static final List<String> METRICS = List.of("ttfb", "domContentLoaded", "load", "lcp", "longTasks",
+			"resources", "bytes");
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(PagePerformance.class);
+
+	private static volatile PagePerformance instance;
+
+	private final ConfigService config;
+	private final boolean enabled;
+	private final String mode;
+	private final Map<String, PageStats> statsByPage = new ConcurrentHashMap<String, PageStats>();
+	// document already measured by this thread (performance.timeOrigin)
+	private final ThreadLocal<Double> lastDocument = new ThreadLocal<Double>();
+	private final ThreadLocal<List<String>> violations = ThreadLocal.withInitial(ArrayList::new);
+	private final ThreadLocal<Boolean> inTest = ThreadLocal.withInitial(() -> false);
+
+	public static PagePerformance getInstance() {
+		if (instance == null) {
+			synchronized (PagePerformance.class) {
+				if (instance == null) {
+					instance = new PagePerformance(ConfigService.getInstance());
+				}
+			}
+		}
+		return instance;
+	}
+
+	PagePerformance(ConfigService config) {
+		this.config = config;
+		this.enabled = Boolean.parseBoolean(config.get("pageperf.enabled", "true"));
+		this.mode = config.get("pageperf.budget.mode", "warn").toLowerCase();
+	}
+
+	/**
+	 * samples of one page type, timings in LatencyHistograms
+	 */
+	public static class PageStats {
+		private final String page;
+		private final Map<String, LatencyHistogram> metrics = new LinkedHashMap<String, LatencyHistogram>();
+		private long overBudget;
+
+		PageStats(String page) {
+			this.page = page;
+			for (String metric : METRICS) {
+				metrics.put(metric, new LatencyHistogram());
+			}
+		}
+
+		public String getPage() {
+			return page;
+		}
+
+		/**
+		 * timings are recorded in ms as nanos, counts and bytes as they are
+		 */
+		public LatencyHistogram getHistogram(String metric) {
+			return metrics.get(metric);
+		}
+
+		public synchronized long getOverBudget() {
+			return overBudget;
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	private static boolean isTiming(String metric) {
+		return !metric.equals("resources") && !metric.equals("bytes");
+	}
+
+	/**
+	 * records the sample of a loaded document and checks the page's budgets.
+	 * A document already measured by this thread is ignored (several page objects
+	 * for the same page).
+	 *
+	 * @param page   page object class name
+	 * @param sample what the page performance script returned
+	 * @throws AssertionError in hard mode, when a budget is exceeded
+	 */
+	public void record(String page, Map<String, Object> sample) {
+		Object origin = sample.get("origin");
+		if (origin instanceof Number) {
+			Double document = ((Number) origin).doubleValue();
+			if (document.equals(lastDocument.get())) {
+				return;
+			}
+			lastDocument.set(document);
+		}
+		PageStats stats = statsByPage.computeIfAbsent(page, PageStats::new);
+		List<String> exceeded = new ArrayList<String>();
+		for (String metric : METRICS) {
+			Object value = sample.get(metric);
+			if (!(value instanceof Number)) {
+				// e.g. no lcp / long tasks in firefox
+				continue;
+			}
+			double v = ((Number) value).doubleValue();
+			stats.metrics.get(metric).record(isTiming(metric) ? Math.round(v * 1_000_000) : Math.round(v));
+			String budget = config.get("pageperf.budget." + page + "." + metric, config.get("pageperf.budget." + metric));
+			if (budget != null && v > Double.parseDouble(budget)) {
+				exceeded.add(String.format("%s %s %.0f > %s", page, metric, v, budget));
+			}
+		}
+		log.debug("page performance of {} ({}): {}", page, sample.get("url"), sample);
+		if (exceeded.isEmpty()) {
+			return;
+		}
+		synchronized (stats) {
+			stats.overBudget++;
+		}
+		String message = "===PAGE PERFORMANCE BUDGET EXCEEDED=== : " + String.join(", ", exceeded);
+		if ("hard".equals(mode)) {
+			throw new AssertionError(message);
+		}
+		log.warn("{}", message);
+		// pages of @BeforeTest / @BeforeClass setup are charged to the next test
+		violations.get().add(inTest.get() ? message : "in setup: " + message);
+	}
+
+	/**
+	 * performance.timeOrigin of the document this thread measured last, null
+	 * before the first one
+	 */
+	Double getLastDocument() {
+		return lastDocument.get();
+	}
+
+	/**
+	 * at test start: violations since the last test (setup pages) stay and
+	 * count for this test
+	 */
+	public void beginTest() {
+		inTest.set(true);
+	}
+
+	/**
+	 * @return the budget violations of the current thread's test, including
+	 *         those of the setup before it
+	 */
+	public List<String> endTest() {
+		inTest.set(false);
+		List<String> list = new ArrayList<String>(violations.get());
+		violations.get().clear();
+		return list;
+	}
+
+	public boolean isSoftMode() {
+		return "soft".equals(mode);
+	}
+
+	/**
+	 * per page type: samples, p50 and p95 of every metric
+	 */
+	public String report() {
+		String nl = System.lineSeparator();
+		StringBuilder sb = new StringBuilder("===page performance (p50 / p95)===").append(nl);
+		for (PageStats stats : new TreeMap<String, PageStats>(statsByPage).values()) {
+			sb.append(String.format("%-20s samples=%-4d over budget=%-3d", stats.page,
+					stats.metrics.get("ttfb").getCount(), stats.getOverBudget()));
+			for (String metric : METRICS) {
+				LatencyHistogram histogram = stats.metrics.get(metric);
+				if (histogram.getCount() > 0) {
+					sb.append(String.format(" %s=%s/%s", metric, format(metric, histogram.getValueAtPercentile(50)),
+							format(metric, histogram.getValueAtPercentile(95))));
+				}
+			}
+			sb.append(nl);
+		}
+		return sb.toString();
+	}
+
+	private static String format(String metric, long value) {
+		return isTiming(metric) ? String.format("%.0fms", value / 1_000_000.0) : String.valueOf(value);
+	}
+
+	/**
+	 * json summary: page -> metric -> {count, p50, p95, max}, timings in ms
+	 */
+	public void writeSummary(Path file) {
+		Map<String, Object> pages = new TreeMap<String, Object>();
+		for (PageStats stats : statsByPage.values()) {
+			Map<String, Object> page = new LinkedHashMap<String, Object>();
+			page.put("overBudget", stats.getOverBudget());
+			for (String metric : METRICS) {
+				LatencyHistogram histogram = stats.metrics.get(metric);
+				if (histogram.getCount() == 0) {
+					continue;
+				}
+				double scale = isTiming(metric) ? 1_000_000.0 : 1;
+				Map<String, Object> values = new LinkedHashMap<String, Object>();
+				values.put("count", histogram.getCount());
+				values.put("p50", Math.round(histogram.getValueAtPercentile(50) / scale * 10) / 10.0);
+				values.put("p95", Math.round(histogram.getValueAtPercentile(95) / scale * 10) / 10.0);
+				values.put("max", Math.round(histogram.getMaxNanos() / scale * 10) / 10.0);
+				page.put(metric, values);
+			}
+			pages.put(stats.page, page);
+		}
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Files.writeString(file, new Json().toJson(pages), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.warn("page performance summary could not be written to {} : {}", file, e.toString());
+		}
+	}
+
+}
@@ -0,0 +1,306 @@
+package com.qa.opencart.utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.testng.ITestResult;
+
+import com.aventstack.chaintest.plugins.ChainTestListener;
+import com.qa.opencart.events.ScreenshotEvent;
+import com.qa.opencart.factory.ConfigService;
+import com.qa.opencart.factory.DriverFactory;
+
+import io.qameta.allure.Allure;
+
+/**
+ * Failure screenshots: captured once per failed test and shared by Allure and
+ * ChainTest.
+ *
+ * Only the capture itself runs on the test thread. A screenshot bigger than
+ * screenshot.maxkb is downscaled and recompressed to jpeg on a background
+ * executor, identical captures (same content hash) are encoded only once.
+ * Allure writes its attachment asynchronously; ChainTest, which can only be fed
+ * from the test thread, waits up to ENCODE_WAIT_MILLIS for the encoded bytes and
+ * then encodes on the test thread itself. Both reports get the same bytes, an
+ * original over screenshot.maxkb is never embedded.
+ */
+public class ScreenshotService {
+
+	private static final String SCREENSHOT_ATTRIBUTE = "framework.screenshot";
+	private static final int DEDUPE_ENTRIES = 32;
+	private static final long ENCODE_WAIT_MILLIS = 3000;
+
+	private static final ScreenshotService INSTANCE = new ScreenshotService();
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(ScreenshotService.class);
+
+	private final int maxBytes;
+	private final int maxWidth;
+	private final float jpegQuality;
+
+	private final ExecutorService encoder = Executors.newFixedThreadPool(2, r -> {
+		Thread t = new Thread(r, "screenshot-encoder");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// content hash -> encoded bytes, so the same error page is encoded once
+	private final Map<String, CompletableFuture<byte[]>> encodedByHash = new LinkedHashMap<String, CompletableFuture<byte[]>>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<byte[]>> eldest) {
+			return size() > DEDUPE_ENTRIES;
+		}
+	};
+
+	public static ScreenshotService getInstance() {
+		return INSTANCE;
+	}
+
+	private ScreenshotService() {
+		ConfigService config = ConfigService.getInstance();
+		maxBytes = config.getInt("screenshot.maxkb", 500) * 1024;
+		maxWidth = config.getInt("screenshot.maxwidth", 1600);
+		jpegQuality = config.getInt("screenshot.jpegquality", 80) / 100f;
+	}
+
+	/**
+	 * one capture of a failed test
+	 */
+	public static class Screenshot {
+		private final byte[] png;
+		private final boolean shrunk;
+		private final CompletableFuture<byte[]> encoded;
+
+		Screenshot(byte[] png, boolean shrunk, CompletableFuture<byte[]> encoded) {
+			this.png = png;
+			this.shrunk = shrunk;
+			this.encoded = encoded;
+		}
+
+		public String getMimeType() {
+			return shrunk ? "image/jpeg" : "image/png";
+		}
+
+		public String getExtension() {
+			return shrunk ? ".jpg" : ".png";
+		}
+
+		/**
+		 * the bytes the reports get, available once the background encoding is done
+		 */
+		public CompletableFuture<byte[]> getEncoded() {
+			return encoded;
+		}
+	}
+
+	/**
+	 * takes the screenshot of the current thread's browser, or returns the one
+	 * already taken for this result
+	 *
+	 * @return null when there is no browser to take it from
+	 */
+	public Screenshot capture(ITestResult result) {
+		Object cached = result.getAttribute(SCREENSHOT_ATTRIBUTE);
+		if (cached instanceof Screenshot) {
+			return (Screenshot) cached;
+		}
+		WebDriver driver = DriverFactory.getDriver();
+		if (driver == null) {
+			return null;
+		}
+		ScreenshotEvent event = new ScreenshotEvent();
+		event.begin();
+		byte[] png;
+		try {
+			png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+		} catch (RuntimeException e) {
+			event.finish(0, e);
+			throw e;
+		}
+		event.finish(png.length, null);
+		Screenshot screenshot;
+		if (png.length <= maxBytes) {
+			screenshot = new Screenshot(png, false, CompletableFuture.completedFuture(png));
+		} else {
+			screenshot = new Screenshot(png, true, CompletableFuture.supplyAsync(() -> shrinkOnce(png), encoder));
+		}
+		result.setAttribute(SCREENSHOT_ATTRIBUTE, screenshot);
+		return screenshot;
+	}
+
+	/**
+	 * captures (once) and hands the screenshot to Allure, the attachment is
+	 * written when the encoding is done
+	 */
+	public void attachToAllure(ITestResult result, String name) {
+		Screenshot screenshot = capture(result);
+		if (screenshot != null) {
+			Allure.addByteAttachmentAsync(name, screenshot.getMimeType(), screenshot.getExtension(),
+					() -> screenshot.getEncoded().join());
+		}
+	}
+
+	/**
+	 * captures (once) and embeds the screenshot in the ChainTest report, must be
+	 * called on the test thread; waits at most ENCODE_WAIT_MILLIS for the
+	 * background encoding
+	 */
+	public void embedInChainTest(ITestResult result) {
+		Screenshot screenshot = capture(result);
+		if (screenshot == null) {
+			return;
+		}
+		byte[] encoded = awaitEncoded(screenshot);
+		if (encoded != null) {
+			ChainTestListener.embed(encoded, screenshot.getMimeType());
+		}
+	}
+
+	/**
+	 * the encoded bytes, shrunk on the calling thread when the background
+	 * encoding is slow or failed; the first result wins so Allure attaches the
+	 * same bytes
+	 *
+	 * @return null when the screenshot could not be encoded at all
+	 */
+	private byte[] awaitEncoded(Screenshot screenshot) {
+		CompletableFuture<byte[]> encoded = screenshot.getEncoded();
+		try {
+			return encoded.get(ENCODE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("screenshot not encoded after {} ms, encoding it on the test thread", ENCODE_WAIT_MILLIS);
+		} catch (ExecutionException e) {
+			log.warn("screenshot could not be encoded, trying again on the test thread: {}", e.getCause().toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		byte[] inline;
+		try {
+			inline = shrink(screenshot.png);
+		} catch (RuntimeException e) {
+			log.warn("screenshot could not be encoded, not embedded: {}", e.toString());
+			return null;
+		}
+		if (!encoded.complete(inline) && encoded.isCompletedExceptionally()) {
+			encoded.obtrudeValue(inline);
+		}
+		return encoded.join();
+	}
+
+	private byte[] shrinkOnce(byte[] png) {
+		String hash = sha256(png);
+		CompletableFuture<byte[]> encoded;
+		boolean owner = false;
+		synchronized (encodedByHash) {
+			encoded = encodedByHash.get(hash);
+			if (encoded == null) {
+				encoded = new CompletableFuture<byte[]>();
+				encodedByHash.put(hash, encoded);
+				owner = true;
+			}
+		}
+		if (owner) {
+			try {
+				encoded.complete(shrink(png));
+			} catch (RuntimeException e) {
+				encoded.completeExceptionally(e);
+			}
+		} else {
+			log.debug("same screenshot as an earlier failure, reusing its encoding");
+		}
+		return encoded.join();
+	}
+
+	/**
+	 * downscales to screenshot.maxwidth and recompresses as jpeg, lowering the
+	 * quality and then the size until it fits screenshot.maxkb
+	 */
+	private byte[] shrink(byte[] png) {
+		try {
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+			double scale = Math.min(1.0, (double) maxWidth / image.getWidth());
+			float quality = jpegQuality;
+			byte[] jpeg = null;
+			for (int attempt = 0; attempt < 6; attempt++) {
+				jpeg = toJpeg(scale(image, scale), quality);
+				if (jpeg.length <= maxBytes) {
+					break;
+				}
+				if (quality > 0.5f) {
+					quality -= 0.15f;
+				} else {
+					scale *= 0.75;
+				}
+			}
+			log.debug("screenshot encoded: {} -> {} bytes", png.length, jpeg.length);
+			return jpeg;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static BufferedImage scale(BufferedImage image, double scale) {
+		int width = Math.max(1, (int) (image.getWidth() * scale));
+		int height = Math.max(1, (int) (image.getHeight() * scale));
+		// jpeg has no alpha channel
+		BufferedImage rgb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = rgb.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return rgb;
+	}
+
+	private static byte[] toJpeg(BufferedImage image, float quality) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(ios);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(quality);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return out.toByteArray();
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,225 @@
+package com.qa.opencart.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary snapshot of a parsed test data sheet or csv file.
+ *
+ * The first load parses the source (POI / opencsv) and writes the table to
+ * target/testdata-cache; later runs memory-map the snapshot instead. A snapshot
+ * stores the SHA-256 of its source file and is only used while the hash still
+ * matches, otherwise the source is parsed again and the snapshot rewritten.
+ *
+ * Snapshots can also be produced at build time:
+ *
+ * <pre>
+ * mvn process-test-resources -Ptestdata-snapshot
+ * </pre>
+ *
+ * Format: magic, version, source hash, column count, row count, then per row the
+ * cell count and the cells as length prefixed UTF-8 strings.
+ */
+public class TestDataSnapshot {
+
+	private static final int MAGIC = 0x4F435444; // "OCTD"
+	private static final int VERSION = 1;
+	private static final int HASH_LENGTH = 32;
+
+	private static final Path CACHE_DIR = Paths.get("./target/testdata-cache");
+
+	private static final FrameworkLogger log = FrameworkLogger.getLogger(TestDataSnapshot.class);
+
+	/**
+	 * @param source the xlsx or csv file
+	 * @param sheet  sheet name, null for a csv file
+	 * @param parser parses the source when there is no fresh snapshot
+	 */
+	public static TestDataTable load(Path source, String sheet, Supplier<TestDataTable> parser) {
+		byte[] hash;
+		try {
+			hash = hash(source);
+		} catch (IOException e) {
+			// let the parser report the missing/unreadable source
+			return parser.get();
+		}
+		Path snapshot = snapshotPath(source, sheet);
+		TestDataTable table = read(snapshot, hash);
+		if (table == null) {
+			table = parser.get();
+			write(snapshot, hash, table);
+		}
+		return table;
+	}
+
+	/**
+	 * removes the snapshot of the source (sheet), if there is one
+	 */
+	public static void delete(Path source, String sheet) {
+		Path snapshot = snapshotPath(source, sheet);
+		try {
+			Files.deleteIfExists(snapshot);
+		} catch (IOException e) {
+			log.warn("test data snapshot could not be deleted: {} {}", snapshot, e);
+		}
+	}
+
+	/**
+	 * file and sheet name for people looking at the cache dir, made unique by a
+	 * digest of the absolute source path and the raw sheet name: "a b" and "a_b",
+	 * or two register.xlsx in different directories, get their own snapshot
+	 */
+	static Path snapshotPath(Path source, String sheet) {
+		String name = source.getFileName().toString();
+		if (sheet != null) {
+			name += "." + sheet.replaceAll("[^A-Za-z0-9_-]", "_");
+		}
+		MessageDigest digest = sha256();
+		digest.update(source.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+		if (sheet != null) {
+			// the separator keeps path "x" + sheet "y" apart from path "x\0y" + no sheet
+			digest.update((byte) 0);
+			digest.update(sheet.getBytes(StandardCharsets.UTF_8));
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte b : Arrays.copyOf(digest.digest(), 12)) {
+			key.append(String.format("%02x", b));
+		}
+		return CACHE_DIR.resolve(name + "." + key + ".bin");
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static byte[] hash(Path source) throws IOException {
+		MessageDigest digest = sha256();
+		try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+			digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return the table, or null when the snapshot is missing, stale or broken
+	 */
+	private static TestDataTable read(Path snapshot, byte[] expectedHash) {
+		if (!Files.isRegularFile(snapshot)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+			byte[] hash = new byte[HASH_LENGTH];
+			buffer.get(hash);
+			if (!Arrays.equals(hash, expectedHash)) {
+				log.info("test data snapshot is stale, parsing the source again: {}", snapshot);
+				return null;
+			}
+			int columnCount = buffer.getInt();
+			int rowCount = buffer.getInt();
+			List<String[]> rows = new ArrayList<String[]>(rowCount);
+			for (int r = 0; r < rowCount; r++) {
+				String[] row = new String[buffer.getInt()];
+				for (int c = 0; c < row.length; c++) {
+					row[c] = readString(buffer);
+				}
+				rows.add(row);
+			}
+			return new TestDataTable(rows, columnCount);
+		} catch (IOException | RuntimeException e) {
+			log.warn("test data snapshot could not be read, parsing the source again: {} {}", snapshot, e);
+			return null;
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void write(Path snapshot, byte[] hash, TestDataTable table) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.write(hash);
+			out.writeInt(table.getColumnCount());
+			out.writeInt(table.getRowCount());
+			for (Object[] row : table.toArray()) {
+				out.writeInt(row.length);
+				for (Object cell : row) {
+					byte[] utf8 = String.valueOf(cell).getBytes(StandardCharsets.UTF_8);
+					out.writeInt(utf8.length);
+					out.write(utf8);
+				}
+			}
+			out.flush();
+
+			Files.createDirectories(snapshot.getParent());
+			// parallel runs may write the same snapshot: write aside, then move
+			Path tmp = Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+			Files.write(tmp, bytes.toByteArray());
+			try {
+				Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			// the parsed table is still used, only the next run parses again
+			log.warn("test data snapshot could not be written: {} {}", snapshot, e);
+		}
+	}
+
+	/**
+	 * build time generation: snapshots every xlsx sheet and csv file of the test
+	 * data directory (first argument, default ./src/test/resources/testdata)
+	 */
+	public static void main(String[] args) throws IOException {
+		Path dir = Paths.get(args.length > 0 ? args[0] : "./src/test/resources/testdata");
+		if (!Files.isDirectory(dir)) {
+			log.warn("no test data directory: {}", dir);
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{xlsx,csv}")) {
+			for (Path file : files) {
+				if (file.toString().endsWith(".csv")) {
+					CSVUtil.getTable(file);
+					log.info("snapshot written: {}", file.getFileName());
+				} else {
+					for (String sheet : ExcelUtil.getSheetNames(file)) {
+						ExcelUtil.getTable(file, sheet);
+						log.info("snapshot written: {} [{}]", file.getFileName(), sheet);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.qa.opencart.utils;
+
+import java.util.List;
+
+/**
+ * Immutable, parsed test data: the data rows of one sheet or csv file.
+ * Tables are cached and shared between data providers, so every caller gets its
+ * own copy of the rows from {@link #toArray()}.
+ */
+public final class TestDataTable {
+
+	private final String[][] rows;
+	private final int columnCount;
+
+	public TestDataTable(List<String[]> rows, int columnCount) {
+		this.rows = rows.toArray(new String[0][]);
+		this.columnCount = columnCount;
+	}
+
+	public int getRowCount() {
+		return rows.length;
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public String get(int row, int column) {
+		return rows[row][column];
+	}
+
+	/**
+	 * a fresh copy of the rows, in the Object[][] shape a DataProvider returns
+	 */
+	public Object[][] toArray() {
+		Object[][] data = new Object[rows.length][];
+		for (int i = 0; i < rows.length; i++) {
+			data[i] = rows[i].clone();
+		}
+		return data;
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.qa.opencart.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.ITestNGMethod;
+
+/**
+ * Run history of every test method: average duration and the results of the
+ * last runs. Data provider rows are also kept per row index, key
+ * "class#method[index]".
+ *
+ * Read from test-history/history.tsv (-Dtest.history) and written back at the
+ * end of the suite to the same file, or to -Dtest.history.out (used by the shard
+ * runner, which merges the shard histories itself). Used to balance shards and
+ * to order tests fail fast.
+ */
+public class TestHistory {
+
+	private static final String DEFAULT_FILE = "./test-history/history.tsv";
+	private static final int RECENT_RUNS = 10;
+	// weight of the latest run in the average duration
+	private static final double LEARNING_RATE = 0.5;
+
+	private static volatile TestHistory instance;
+
+	private final Path file;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * history of one method or data provider row
+	 */
+	public static class Entry {
+		private double avgMillis;
+		private int runs;
+		// last results, oldest first: P passed, F failed
+		private String recent;
+
+		Entry(double avgMillis, int runs, String recent) {
+			this.avgMillis = avgMillis;
+			this.runs = runs;
+			this.recent = recent;
+		}
+
+		synchronized void record(long millis, boolean failed) {
+			avgMillis = runs == 0 ? millis : LEARNING_RATE * millis + (1 - LEARNING_RATE) * avgMillis;
+			runs++;
+			recent = recent + (failed ? 'F' : 'P');
+			if (recent.length() > RECENT_RUNS) {
+				recent = recent.substring(recent.length() - RECENT_RUNS);
+			}
+		}
+
+		/**
+		 * adds the runs another copy of this entry made since the base both
+		 * started from: the durations are averaged by run count, the results
+		 * appended
+		 * 
+		 * @param baseRuns runs of the entry both copies started from
+		 */
+		synchronized void absorb(Entry other, int baseRuns) {
+			String theirs;
+			double theirAvg;
+			int theirNew;
+			synchronized (other) {
+				theirNew = other.runs - baseRuns;
+				theirs = other.recent;
+				theirAvg = other.avgMillis;
+			}
+			if (theirNew <= 0) {
+				return;
+			}
+			int myNew = runs - baseRuns;
+			avgMillis = myNew <= 0 ? theirAvg : (avgMillis * myNew + theirAvg * theirNew) / (myNew + theirNew);
+			runs += theirNew;
+			recent = recent + theirs.substring(Math.max(0, theirs.length() - theirNew));
+			if (recent.length() > RECENT_RUNS) {
+				recent = recent.substring(recent.length() - RECENT_RUNS);
+			}
+		}
+
+		synchronized Entry copy() {
+			return new Entry(avgMillis, runs, recent);
+		}
+
+		public synchronized double getAvgMillis() {
+			return avgMillis;
+		}
+
+		public synchronized int getRuns() {
+			return runs;
+		}
+
+		public synchronized double getFailureRate() {
+			if (recent.isEmpty()) {
+				return 0;
+			}
+			return recent.chars().filter(c -> c == 'F').count() / (double) recent.length();
+		}
+
+		synchronized String toLine(String key) {
+			return key + "\t" + String.format(java.util.Locale.ROOT, "%.1f", avgMillis) + "\t" + runs + "\t" + recent;
+		}
+	}
+
+	public static TestHistory getInstance() {
+		if (instance == null) {
+			synchronized (TestHistory.class) {
+				if (instance == null) {
+					instance = load(Paths.get(System.getProperty("test.history", DEFAULT_FILE)));
+				}
+			}
+		}
+		return instance;
+	}
+
+	private TestHistory(Path file) {
+		this.file = file;
+	}
+
+	public static TestHistory load(Path file) {
+		TestHistory history = new TestHistory(file);
+		if (Files.isRegularFile(file)) {
+			try {
+				for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+					String[] cols = line.split("\t", -1);
+					if (cols.length == 4 && !line.startsWith("#")) {
+						history.entries.put(cols[0],
+								new Entry(Double.parseDouble(cols[1]), Integer.parseInt(cols[2]), cols[3]));
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// a broken history only costs the ordering, never the run
+				history.entries.clear();
+			}
+		}
+		return history;
+	}
+
+	public static String methodKey(ITestNGMethod method) {
+		return methodKey(method.getRealClass().getName(), method.getMethodName());
+	}
+
+	public static String methodKey(String className, String methodName) {
+		return className + "#" + methodName;
+	}
+
+	/**
+	 * @param paramIndex data provider row, -1 for a test without data provider
+	 */
+	public void record(String methodKey, int paramIndex, long millis, boolean failed) {
+		entries.computeIfAbsent(methodKey, k -> new Entry(0, 0, "")).record(millis, failed);
+		if (paramIndex >= 0) {
+			entries.computeIfAbsent(methodKey + "[" + paramIndex + "]", k -> new Entry(0, 0, "")).record(millis, failed);
+		}
+	}
+
+	/**
+	 * @return null when the method never ran
+	 */
+	public Entry get(String methodKey) {
+		return entries.get(methodKey);
+	}
+
+	/**
+	 * average duration of the method's whole run (all its data provider rows), -1
+	 * when unknown
+	 */
+	public double getTotalMillis(String methodKey) {
+		SortedMap<Integer, Double> rows = getRowMillis(methodKey);
+		if (!rows.isEmpty()) {
+			return rows.values().stream().mapToDouble(Double::doubleValue).sum();
+		}
+		Entry entry = entries.get(methodKey);
+		return entry == null ? -1 : entry.getAvgMillis();
+	}
+
+	/**
+	 * average duration per data provider row index, empty for a test without rows
+	 */
+	public SortedMap<Integer, Double> getRowMillis(String methodKey) {
+		SortedMap<Integer, Double> rows = new TreeMap<Integer, Double>();
+		String prefix = methodKey + "[";
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			String key = e.getKey();
+			if (key.startsWith(prefix) && key.endsWith("]")) {
+				rows.put(Integer.parseInt(key.substring(prefix.length(), key.length() - 1)), e.getValue().getAvgMillis());
+			}
+		}
+		return rows;
+	}
+
+	public double getFailureRate(String methodKey) {
+		Entry entry = entries.get(methodKey);
+		return entry == null ? 0 : entry.getFailureRate();
+	}
+
+	/**
+	 * a copy of the entries, e.g. the history the shards start from
+	 */
+	public TestHistory copy() {
+		TestHistory copy = new TestHistory(file);
+		entries.forEach((key, entry) -> copy.entries.put(key, entry.copy()));
+		return copy;
+	}
+
+	/**
+	 * adds the runs of another history that started from base, e.g. of a shard
+	 * that ran with it. Several shards can have run rows of the same method:
+	 * their runs and failures are all counted.
+	 */
+	public void merge(TestHistory other, TestHistory base) {
+		for (Map.Entry<String, Entry> e : other.entries.entrySet()) {
+			Entry start = base.entries.get(e.getKey());
+			int baseRuns = start == null ? 0 : start.getRuns();
+			if (e.getValue().getRuns() <= baseRuns) {
+				// not run by that shard
+				continue;
+			}
+			Entry mine = entries.putIfAbsent(e.getKey(), e.getValue().copy());
+			if (mine != null) {
+				mine.absorb(e.getValue(), baseRuns);
+			}
+		}
+	}
+
+	public void save() throws IOException {
+		save(Paths.get(System.getProperty("test.history.out", file.toString())));
+	}
+
+	public void save(Path target) throws IOException {
+		Path dir = target.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, "history", ".tmp");
+		try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			out.write("# test\tavg millis\truns\tlast results");
+			out.newLine();
+			for (Map.Entry<String, Entry> e : new TreeMap<String, Entry>(entries).entrySet()) {
+				out.write(e.getValue().toLine(e.getKey()));
+				out.newLine();
+			}
+		}
+		Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+}
@@ -0,0 +1,213 @@
+package com.qa.opencart.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Shared wait engine behind the ElementUtil wait methods.
+ *
+ * Unlike WebDriverWait (fixed 500 ms polling) the condition is checked right
+ * away, then polled with a short interval that backs off exponentially. The
+ * engine learns the typical time to ready of every wait key (page + locator)
+ * and schedules the first poll close to it. Statistics are kept per key.
+ */
+public class WaitEngine {
+
+	private static final long MIN_POLL_MILLIS = 10;
+	private static final long MAX_POLL_MILLIS = 500;
+	// weight of the latest sample in the learned time to ready
+	private static final double LEARNING_RATE = 0.3;
+
+	private static final WaitEngine INSTANCE = new WaitEngine();
+
+	private final Map<String, WaitStats> statsByKey = new ConcurrentHashMap<String, WaitStats>();
+
+	public static WaitEngine getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * statistics of one wait key
+	 */
+	public static class WaitStats {
+		private final String key;
+		private long waits;
+		private long timeouts;
+		private long polls;
+		private long totalNanos;
+		private long maxNanos;
+		private double typicalReadyMillis = -1;
+
+		WaitStats(String key) {
+			this.key = key;
+		}
+
+		synchronized void record(long nanos, int pollCount, boolean success) {
+			waits++;
+			polls += pollCount;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			if (success) {
+				double millis = nanos / 1_000_000.0;
+				typicalReadyMillis = typicalReadyMillis < 0 ? millis
+						: LEARNING_RATE * millis + (1 - LEARNING_RATE) * typicalReadyMillis;
+			} else {
+				timeouts++;
+			}
+		}
+
+		synchronized double getTypicalReadyMillis() {
+			return typicalReadyMillis;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public synchronized long getWaits() {
+			return waits;
+		}
+
+		public synchronized long getTimeouts() {
+			return timeouts;
+		}
+
+		public synchronized long getPolls() {
+			return polls;
+		}
+
+		public synchronized double getTotalMillis() {
+			return totalNanos / 1_000_000.0;
+		}
+
+		public synchronized double getAverageMillis() {
+			return waits == 0 ? 0 : totalNanos / 1_000_000.0 / waits;
+		}
+
+		public synchronized double getMaxMillis() {
+			return maxNanos / 1_000_000.0;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("%-90s waits=%-5d timeouts=%-3d polls=%-5d total=%9.1fms avg=%8.1fms max=%8.1fms learned=%7.1fms",
+					key, waits, timeouts, polls, getTotalMillis(), getAverageMillis(), getMaxMillis(),
+					Math.max(0, typicalReadyMillis));
+		}
+	}
+
+	/**
+	 * same as WebDriverWait.until: waits until the condition returns something
+	 * other than null or false, NotFoundException is ignored while waiting
+	 */
+	public <V> V until(WebDriver driver, String key, int timeOut, Function<? super WebDriver, V> condition) {
+		return until(driver, key, Duration.ofSeconds(timeOut), condition, null, Set.of(NotFoundException.class));
+	}
+
+	/**
+	 * @param driver
+	 * @param key       wait key the statistics and learned timing belong to
+	 * @param timeOut
+	 * @param condition
+	 * @param message   timeout message, null for the default one
+	 * @param ignored   exceptions treated like "not ready yet"
+	 * @return the condition value
+	 * @throws TimeoutException when the condition is not met in time
+	 */
+	public <V> V until(WebDriver driver, String key, Duration timeOut, Function<? super WebDriver, V> condition,
+			String message, Collection<Class<? extends Throwable>> ignored) {
+		WaitStats stats = statsByKey.computeIfAbsent(key, WaitStats::new);
+		long start = System.nanoTime();
+		long end = start + timeOut.toNanos();
+		long poll = MIN_POLL_MILLIS;
+		int pollCount = 0;
+		Throwable lastException = null;
+
+		while (true) {
+			pollCount++;
+			try {
+				V value = condition.apply(driver);
+				if (value != null && (!(value instanceof Boolean) || Boolean.TRUE.equals(value))) {
+					stats.record(System.nanoTime() - start, pollCount, true);
+					return value;
+				}
+				lastException = null;
+			} catch (Throwable e) {
+				if (!isIgnored(e, ignored)) {
+					throw e;
+				}
+				lastException = e;
+			}
+
+			long now = System.nanoTime();
+			if (now >= end) {
+				stats.record(now - start, pollCount, false);
+				String timeOutMessage = String.format("Expected condition failed: %s (tried for %d second(s) with adaptive polling)",
+						message == null ? "waiting for " + condition : message, timeOut.getSeconds());
+				throw new TimeoutException(timeOutMessage, lastException);
+			}
+
+			long sleepMillis;
+			if (pollCount == 1) {
+				// first poll close to the time this wait is usually ready
+				double typical = stats.getTypicalReadyMillis();
+				long elapsed = TimeUnit.NANOSECONDS.toMillis(now - start);
+				sleepMillis = typical < 0 ? MIN_POLL_MILLIS : (long) (typical * 0.9) - elapsed;
+				sleepMillis = Math.max(MIN_POLL_MILLIS, Math.min(MAX_POLL_MILLIS, sleepMillis));
+			} else {
+				poll = Math.min(MAX_POLL_MILLIS, poll * 2);
+				sleepMillis = poll;
+			}
+			sleepMillis = Math.min(sleepMillis, Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - now)));
+
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TimeoutException("===wait interrupted=== : " + key, e);
+			}
+		}
+	}
+
+	private static boolean isIgnored(Throwable e, Collection<Class<? extends Throwable>> ignored) {
+		for (Class<? extends Throwable> type : ignored) {
+			if (type.isInstance(e)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * snapshot of the statistics of every wait key
+	 */
+	public Map<String, WaitStats> getStatistics() {
+		return Map.copyOf(statsByKey);
+	}
+
+	/**
+	 * statistics of every wait key, the keys that cost the most time first
+	 */
+	public String report() {
+		List<WaitStats> all = new ArrayList<WaitStats>(statsByKey.values());
+		all.sort(Comparator.comparingDouble(WaitStats::getTotalMillis).reversed());
+		StringBuilder sb = new StringBuilder("===wait statistics===").append(System.lineSeparator());
+		for (WaitStats stats : all) {
+			sb.append(stats).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+
+}
@@ -6,16 +6,19 @@ import org.openqa.selenium.WebDriver;
 import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterTest;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Parameters;
 
 import com.aventstack.chaintest.plugins.ChainTestListener;
+import com.qa.opencart.factory.ConfigService;
 import com.qa.opencart.factory.DriverFactory;
 import com.qa.opencart.pages.AccountsPage;
 import com.qa.opencart.pages.LoginPage;
 import com.qa.opencart.pages.ProductInfoPage;
 import com.qa.opencart.pages.RegisterPage;
 import com.qa.opencart.pages.SearchResultsPage;
+import com.qa.opencart.utils.ScreenshotService;
 
 //@Listeners(ChainTestListener.class)
 
@@ -23,6 +26,7 @@ public class BaseTest {
 WebDriver driver;
 	
 	DriverFactory df;
+	protected ConfigService config;
 	protected Properties prop;
 	
 	protected LoginPage loginPage;
@@ -35,22 +39,42 @@ WebDriver driver;
 	@BeforeTest
 	public void setup(String browserName) {
 		df = new DriverFactory();
-		prop = df.initProp();
-		
-			//browserName is passed from .xml file
-			if(browserName!=null) {
-				prop.setProperty("browser", browserName);
-			}
+		//loaded once per run, browserName is passed from .xml file
+		config = ConfigService.getInstance().withBrowser(browserName);
+		prop = config.toProperties();
 
-		driver = df.initDriver(prop);//login page
-		loginPage = new LoginPage(driver);
+		driver = df.initDriver(config);//login page
+		loginPage = new LoginPage(driver).capturePagePerformance();
+	}
+	
+	
+	/**
+	 * after an infrastructure retry (see Retry) the thread has a fresh session:
+	 * loginPage is rebuilt on it and the test class gets onSessionRecycled
+	 */
+	@BeforeMethod
+	public void syncSession() {
+		WebDriver current = DriverFactory.getDriver();
+		if (driver == null || current == null || current == driver) {
+			return;
+		}
+		driver = current;
+		loginPage = new LoginPage(driver).capturePagePerformance();
+		onSessionRecycled();
 	}
 	
+	/**
+	 * the new session is on the login page, classes whose @BeforeClass moves on
+	 * from there (e.g. login) repeat those steps here
+	 */
+	protected void onSessionRecycled() {
+	}
 	
 	@AfterMethod //will be running after each @test method
 	public void attachScreenshot(ITestResult result) {
 		if(!result.isSuccess()) {//only for failure test cases -- true
-			ChainTestListener.embed(DriverFactory.getScreenshotFile(), "image/png");
+			//same capture as the Allure attachment, taken once per failure
+			ScreenshotService.getInstance().embedInChainTest(result);
 		}
 		
 		//ChainTestListener.embed(DriverFactory.getScreenshotFile(), "image/png");
@@ -59,9 +83,11 @@ WebDriver driver;
 	
 	
 	
-	@AfterTest
+	@AfterTest(alwaysRun = true)
 	public void tearDown() {
-		driver.quit();
+		//session goes back to the pool, it is quit at the end of the run
+		//alwaysRun: also after a failed setup, the lease would keep its pool slot
+		DriverFactory.releaseDriver();
 	}
 	
 
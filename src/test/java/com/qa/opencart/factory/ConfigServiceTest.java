@@ -0,0 +1,96 @@
+package com.qa.opencart.factory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ConfigServiceTest {
+
+	private static final List<String> KEYS = List.of("browser", "wire.budget", "wire.commands", "wire.budget.mode",
+			"locator.profile", "locator.probe");
+
+	private final Map<String, String> saved = new HashMap<String, String>();
+	private Path file;
+
+	@BeforeMethod
+	public void writeFile() throws IOException {
+		for (String key : KEYS) {
+			saved.put(key, System.clearProperty(key));
+		}
+		file = Files.createTempFile("test", ".config.properties");
+		Files.write(file, List.of("browser = chrome", "wire.budget = 10"), StandardCharsets.UTF_8);
+	}
+
+	@AfterMethod
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+		// the properties of the surefire command line are back for the next test
+		for (String key : KEYS) {
+			if (saved.get(key) == null) {
+				System.clearProperty(key);
+			} else {
+				System.setProperty(key, saved.get(key));
+			}
+		}
+	}
+
+	@Test
+	public void systemPropertyOverridesTheFile() {
+		System.setProperty("browser", "Firefox ");
+		System.setProperty("wire.budget", "40");
+		ConfigService config = ConfigService.load("test", file);
+		Assert.assertEquals(config.getBrowser(), "firefox");
+		Assert.assertEquals(config.getInt("wire.budget", 0), 40);
+	}
+
+	@Test
+	public void systemPropertyOfAKeyMissingFromTheFileIsPickedUp() {
+		System.setProperty("wire.commands", "false");
+		System.setProperty("wire.budget.mode", "fail");
+		ConfigService config = ConfigService.load("test", file);
+		Assert.assertEquals(config.get("wire.commands", "true"), "false");
+		Assert.assertEquals(config.get("wire.budget.mode"), "fail");
+		Assert.assertEquals(config.get("wire.budget.mode", "warn"), "fail");
+	}
+
+	@Test
+	public void locatorProfilerSwitchesCanBeOverridden() {
+		System.setProperty("locator.profile", "false");
+		System.setProperty("locator.probe", "true");
+		ConfigService config = ConfigService.load("test", file);
+		Assert.assertFalse(Boolean.parseBoolean(config.get("locator.profile", "true")));
+		Assert.assertTrue(Boolean.parseBoolean(config.get("locator.probe", "false")));
+	}
+
+	@Test
+	public void callerDefaultAppliesWhenNoLayerHasTheKey() {
+		ConfigService config = ConfigService.load("test", file);
+		Assert.assertEquals(config.get("wire.commands", "true"), "true");
+		Assert.assertEquals(config.getInt("wire.budget.SearchTest.searchTest", 7), 7);
+		Assert.assertNull(config.get("wire.budget.mode"));
+	}
+
+	@Test
+	public void handBuiltPropertiesHaveNoOverrideLayers() {
+		System.setProperty("wire.commands", "false");
+		Properties prop = new Properties();
+		prop.setProperty("browser", "chrome");
+		Assert.assertNull(ConfigService.fromProperties(prop).get("wire.commands"));
+	}
+
+	@Test
+	public void envVarNameIsPrefixedUpperCase() {
+		Assert.assertEquals(ConfigService.envVarName("wire.budget.mode"), "OC_WIRE_BUDGET_MODE");
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.qa.opencart.runner;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlPackage;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qa.opencart.utils.TestHistory;
+
+public class ShardPlannerTest {
+
+	// sample test classes, the planner only reads their @Test methods (abstract,
+	// so TestNG does not run them)
+
+	public abstract static class Heavy {
+		@Test
+		public void first() {
+		}
+
+		@Test
+		public void second() {
+		}
+	}
+
+	public abstract static class Light {
+		@Test
+		public void only() {
+		}
+	}
+
+	public abstract static class Other {
+		@Test
+		public void only() {
+		}
+	}
+
+	public abstract static class Tiny {
+		@Test
+		public void only() {
+		}
+	}
+
+	public abstract static class DataDriven {
+		@Test
+		public void rows() {
+		}
+	}
+
+	private static TestHistory history() {
+		return TestHistory.load(Paths.get("target/no-history.tsv"));
+	}
+
+	private static void run(TestHistory history, Class<?> testClass, String method, long millis) {
+		history.record(TestHistory.methodKey(testClass.getName(), method), -1, millis, false);
+	}
+
+	private static XmlSuite suite(Class<?>... testClasses) {
+		XmlSuite suite = new XmlSuite();
+		suite.setName("suite");
+		XmlTest test = new XmlTest(suite);
+		test.setName("test");
+		List<XmlClass> classes = new ArrayList<XmlClass>();
+		for (Class<?> testClass : testClasses) {
+			classes.add(new XmlClass(testClass.getName(), false));
+		}
+		test.setXmlClasses(classes);
+		return suite;
+	}
+
+	private static List<String> classNames(XmlSuite suite) {
+		List<String> names = new ArrayList<String>();
+		for (XmlTest test : suite.getTests()) {
+			for (XmlClass xmlClass : test.getXmlClasses()) {
+				names.add(xmlClass.getName());
+			}
+		}
+		return names;
+	}
+
+	@Test
+	public void longestUnitsFirstOntoTheLeastLoadedShard() {
+		TestHistory history = history();
+		run(history, Heavy.class, "first", 20_000);
+		run(history, Heavy.class, "second", 20_000);
+		run(history, Light.class, "only", 30_000);
+		run(history, Other.class, "only", 20_000);
+		run(history, Tiny.class, "only", 10_000);
+		ShardPlanner planner = new ShardPlanner(history, 1_000, 0);
+		XmlSuite suite = suite(Heavy.class, Light.class, Other.class, Tiny.class);
+
+		List<ShardPlanner.Shard> shards = planner.plan(suite, 2);
+
+		// 40 + 10 and 30 + 20
+		Assert.assertEquals(shards.get(0).getMillis(), 50_000.0);
+		Assert.assertEquals(shards.get(1).getMillis(), 50_000.0);
+		Assert.assertEquals(classNames(planner.toSuite(suite, shards.get(0))),
+				List.of(Heavy.class.getName(), Tiny.class.getName()));
+		Assert.assertEquals(classNames(planner.toSuite(suite, shards.get(1))),
+				List.of(Light.class.getName(), Other.class.getName()));
+	}
+
+	@Test
+	public void classHeavierThanItsShareIsSplitIntoMethods() {
+		TestHistory history = history();
+		run(history, Heavy.class, "first", 60_000);
+		run(history, Heavy.class, "second", 60_000);
+		run(history, Light.class, "only", 20_000);
+		ShardPlanner planner = new ShardPlanner(history, 1_000, 0);
+		XmlSuite suite = suite(Heavy.class, Light.class);
+
+		List<ShardPlanner.Shard> shards = planner.plan(suite, 2);
+
+		List<String> methods = new ArrayList<String>();
+		for (ShardPlanner.Shard shard : shards) {
+			XmlClass heavy = planner.toSuite(suite, shard).getTests().get(0).getXmlClasses().get(0);
+			Assert.assertEquals(heavy.getName(), Heavy.class.getName());
+			Assert.assertEquals(heavy.getIncludedMethods().size(), 1);
+			methods.add(heavy.getIncludedMethods().get(0).getName());
+		}
+		Assert.assertEquals(methods.stream().sorted().toList(), List.of("first", "second"));
+		Assert.assertEquals(shards.get(0).getMillis() + shards.get(1).getMillis(), 140_000.0);
+	}
+
+	@Test
+	public void dataProviderRowsAreChunkedWithHeadroomForNewRows() {
+		TestHistory history = history();
+		String key = TestHistory.methodKey(DataDriven.class.getName(), "rows");
+		for (int row = 0; row < 6; row++) {
+			history.record(key, row, 10_000, false);
+		}
+		ShardPlanner planner = new ShardPlanner(history, 1_000, 0);
+		XmlSuite suite = suite(DataDriven.class);
+
+		List<ShardPlanner.Shard> shards = planner.plan(suite, 2);
+
+		List<List<Integer>> rows = new ArrayList<List<Integer>>();
+		for (ShardPlanner.Shard shard : shards) {
+			XmlInclude include = planner.toSuite(suite, shard).getTests().get(0).getXmlClasses().get(0)
+					.getIncludedMethods().get(0);
+			Assert.assertEquals(include.getName(), "rows");
+			rows.add(include.getInvocationNumbers());
+		}
+		rows.sort((a, b) -> a.get(0) - b.get(0));
+		Assert.assertEquals(rows.get(0), List.of(0, 1, 2));
+		Assert.assertEquals(rows.get(1).subList(0, 3), List.of(3, 4, 5));
+		Assert.assertEquals(rows.get(1).size(), 3 + 100);
+	}
+
+	@Test
+	public void packagesRunInExactlyOneShard() {
+		TestHistory history = history();
+		run(history, Light.class, "only", 5_000);
+		ShardPlanner planner = new ShardPlanner(history, 1_000, 0);
+		XmlSuite suite = suite(Light.class);
+		XmlTest packages = new XmlTest(suite);
+		packages.setName("packages");
+		packages.setXmlPackages(List.of(new XmlPackage("com.example.tests")));
+
+		List<ShardPlanner.Shard> shards = planner.plan(suite, 2);
+
+		int withPackages = 0;
+		for (ShardPlanner.Shard shard : shards) {
+			for (XmlTest test : planner.toSuite(suite, shard).getTests()) {
+				if (!test.getXmlPackages().isEmpty()) {
+					Assert.assertEquals(test.getName(), "packages");
+					Assert.assertEquals(test.getXmlPackages().get(0).getName(), "com.example.tests");
+					withPackages++;
+				}
+			}
+		}
+		Assert.assertEquals(withPackages, 1);
+	}
+
+}
@@ -19,6 +19,11 @@ public class AccountsPageTest extends BaseTest {
 		public void accPageSetup() {
 			accPage = loginPage.doLogin(prop.getProperty("username"), prop.getProperty("password"));
 		}
+
+		@Override
+		protected void onSessionRecycled() {
+			accPageSetup();
+		}
 		
 		@Test
 		public void accPageTitleTest() {
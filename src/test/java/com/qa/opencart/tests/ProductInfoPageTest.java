@@ -1,5 +1,6 @@
 package com.qa.opencart.tests;
 
+import java.util.Iterator;
 import java.util.Map;
 
 import org.testng.Assert;
@@ -22,6 +23,11 @@ public class ProductInfoPageTest extends BaseTest {
 		accPage = loginPage.doLogin(prop.getProperty("username"), prop.getProperty("password"));
 		
 	}
+
+	@Override
+	protected void onSessionRecycled() {
+		productInfoSetup();
+	}
 	
 	//search()-failed
 
@@ -65,8 +71,8 @@ public class ProductInfoPageTest extends BaseTest {
 	}
 	
 	@DataProvider
-	public Object[][] getProductCSVData() {
-		return CSVUtil.csvData("product");
+	public Iterator<Object[]> getProductCSVData() {
+		return CSVUtil.csvIterator("product");
 	}
 	
 	@Test(dataProvider = "getProductCSVData")
@@ -16,6 +16,11 @@ public class RegisterPageTest extends BaseTest{
 	public void registerSetup() {
 		registerPage = loginPage.navigateToRegisterPage();
 	}
+
+	@Override
+	protected void onSessionRecycled() {
+		registerSetup();
+	}
 	
 	//MSexcel: .xlsx : read using apache POI
 	
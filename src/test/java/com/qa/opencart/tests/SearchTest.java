@@ -18,6 +18,11 @@ public class SearchTest extends BaseTest {
 	public void searchSetup() {
 		accPage = loginPage.doLogin(prop.getProperty("username"), prop.getProperty("password"));
 	}
+
+	@Override
+	protected void onSessionRecycled() {
+		searchSetup();
+	}
 	
 	@Description("Check search feature test...")
 	@Severity(SeverityLevel.MINOR)
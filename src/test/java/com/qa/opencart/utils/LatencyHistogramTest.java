@@ -0,0 +1,82 @@
+package com.qa.opencart.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void smallValuesHaveTheirOwnBucket() {
+		for (long value = 0; value < 8; value++) {
+			int bucket = LatencyHistogram.bucket(value);
+			Assert.assertEquals(LatencyHistogram.lowerBound(bucket), value);
+			Assert.assertEquals(LatencyHistogram.upperBound(bucket), value);
+		}
+	}
+
+	@Test
+	public void everyValueFallsInsideItsBucket() {
+		long[] values = { 8, 9, 15, 16, 17, 1000, 1_000_000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE };
+		for (long value : values) {
+			int bucket = LatencyHistogram.bucket(value);
+			Assert.assertTrue(LatencyHistogram.lowerBound(bucket) <= value, "lower bound of " + value);
+			Assert.assertTrue(LatencyHistogram.upperBound(bucket) >= value, "upper bound of " + value);
+		}
+	}
+
+	@Test
+	public void bucketsAreContiguousAndWithinTheRelativeError() {
+		for (int bucket = 8; bucket < 8 * 40; bucket++) {
+			long lower = LatencyHistogram.lowerBound(bucket);
+			long upper = LatencyHistogram.upperBound(bucket);
+			Assert.assertEquals(LatencyHistogram.lowerBound(bucket + 1), upper + 1, "gap after bucket " + bucket);
+			Assert.assertEquals(LatencyHistogram.bucket(lower), bucket);
+			Assert.assertEquals(LatencyHistogram.bucket(upper), bucket);
+			Assert.assertTrue((upper - lower + 1) <= lower / 8.0, "bucket " + bucket + " wider than 12.5%");
+		}
+	}
+
+	@Test
+	public void percentilesAreWithinOneBucket() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long millis = 1; millis <= 100; millis++) {
+			histogram.record(millis * 1_000_000);
+		}
+		Assert.assertEquals(histogram.getCount(), 100);
+		Assert.assertEquals(histogram.getMaxNanos(), 100_000_000);
+		Assert.assertEquals(histogram.getMeanMillis(), 50.5, 0.001);
+		Assert.assertEquals(histogram.getPercentileMillis(50), 50, 50 * 0.125);
+		Assert.assertEquals(histogram.getPercentileMillis(90), 90, 90 * 0.125);
+		Assert.assertEquals(histogram.getPercentileMillis(100), 100, 100 * 0.125);
+		Assert.assertTrue(histogram.getValueAtPercentile(100) <= histogram.getMaxNanos());
+	}
+
+	@Test
+	public void emptyHistogramReportsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(histogram.getValueAtPercentile(99), 0);
+		Assert.assertEquals(histogram.getMeanMillis(), 0.0);
+	}
+
+	@Test
+	public void negativeValuesAreRecordedAsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		Assert.assertEquals(histogram.getCount(), 1);
+		Assert.assertEquals(histogram.getValueAtPercentile(50), 0);
+	}
+
+	@Test
+	public void addMergesCountsAndMax() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+		a.record(1_000);
+		b.record(2_000);
+		b.record(3_000_000);
+		a.add(b);
+		Assert.assertEquals(a.getCount(), 3);
+		Assert.assertEquals(a.getTotalNanos(), 3_003_000);
+		Assert.assertEquals(a.getMaxNanos(), 3_000_000);
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestDataSnapshotTest {
+
+	private Path dir;
+
+	@BeforeMethod
+	public void createDir() throws IOException {
+		dir = Files.createTempDirectory("snapshot");
+	}
+
+	@AfterMethod
+	public void deleteDir() throws IOException {
+		try (var files = Files.walk(dir)) {
+			files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	private static TestDataTable table(String cell) {
+		return new TestDataTable(List.<String[]>of(new String[] { cell }), 1);
+	}
+
+	private static TestDataTable notParsedAgain() {
+		throw new AssertionError("the snapshot should have been used");
+	}
+
+	@Test
+	public void sheetNamesThatSanitizeAlikeGetTheirOwnSnapshot() throws IOException {
+		Path source = Files.write(dir.resolve("register.xlsx"), "sheets".getBytes(StandardCharsets.UTF_8));
+		Path spaced = TestDataSnapshot.snapshotPath(source, "a b");
+		Path underscored = TestDataSnapshot.snapshotPath(source, "a_b");
+		Assert.assertNotEquals(spaced, underscored);
+		try {
+			Assert.assertEquals(TestDataSnapshot.load(source, "a b", () -> table("spaced")).get(0, 0), "spaced");
+			Assert.assertEquals(TestDataSnapshot.load(source, "a_b", () -> table("underscored")).get(0, 0),
+					"underscored");
+			Assert.assertEquals(TestDataSnapshot.load(source, "a b", TestDataSnapshotTest::notParsedAgain).get(0, 0),
+					"spaced");
+			Assert.assertEquals(TestDataSnapshot.load(source, "a_b", TestDataSnapshotTest::notParsedAgain).get(0, 0),
+					"underscored");
+		} finally {
+			Files.deleteIfExists(spaced);
+			Files.deleteIfExists(underscored);
+		}
+	}
+
+	@Test
+	public void sameFileNameInAnotherDirectoryGetsItsOwnSnapshot() throws IOException {
+		Path first = Files.write(Files.createDirectory(dir.resolve("one")).resolve("product.csv"),
+				"a".getBytes(StandardCharsets.UTF_8));
+		Path second = Files.write(Files.createDirectory(dir.resolve("two")).resolve("product.csv"),
+				"b".getBytes(StandardCharsets.UTF_8));
+		Assert.assertNotEquals(TestDataSnapshot.snapshotPath(first, null), TestDataSnapshot.snapshotPath(second, null));
+		Assert.assertEquals(TestDataSnapshot.snapshotPath(first, null),
+				TestDataSnapshot.snapshotPath(dir.resolve("two/../one/product.csv"), null));
+	}
+
+}
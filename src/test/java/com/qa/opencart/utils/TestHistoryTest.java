@@ -0,0 +1,119 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestHistoryTest {
+
+	private static final String KEY = "com.example.SearchTest#searchTest";
+
+	private Path dir;
+
+	@BeforeMethod
+	public void createDir() throws IOException {
+		dir = Files.createTempDirectory("history");
+	}
+
+	@AfterMethod
+	public void deleteDir() throws IOException {
+		try (var files = Files.walk(dir)) {
+			files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	private TestHistory load(String... lines) throws IOException {
+		Path file = dir.resolve("history.tsv");
+		Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+		return TestHistory.load(file);
+	}
+
+	@Test
+	public void parsesEntriesAndSkipsComments() throws IOException {
+		TestHistory history = load("# test\tavg millis\truns\tlast results", KEY + "\t1200.0\t4\tPPFP");
+		Assert.assertEquals(history.get(KEY).getAvgMillis(), 1200.0);
+		Assert.assertEquals(history.get(KEY).getRuns(), 4);
+		Assert.assertEquals(history.getFailureRate(KEY), 0.25);
+		Assert.assertNull(history.get("com.example.SearchTest#other"));
+	}
+
+	@Test
+	public void brokenFileGivesAnEmptyHistory() throws IOException {
+		TestHistory history = load(KEY + "\tnot a number\t4\tPPFP");
+		Assert.assertNull(history.get(KEY));
+		Assert.assertEquals(history.getTotalMillis(KEY), -1.0);
+	}
+
+	@Test
+	public void missingFileGivesAnEmptyHistory() {
+		Assert.assertNull(TestHistory.load(dir.resolve("none.tsv")).get(KEY));
+	}
+
+	@Test
+	public void rowsAddUpToTheMethodTotal() throws IOException {
+		TestHistory history = load(KEY + "\t50.0\t3\tPPP", KEY + "[0]\t100.0\t1\tP", KEY + "[1]\t200.0\t1\tP",
+				KEY + "[10]\t300.0\t1\tP");
+		Assert.assertEquals(history.getRowMillis(KEY).keySet(), List.of(0, 1, 10));
+		Assert.assertEquals(history.getTotalMillis(KEY), 600.0);
+	}
+
+	@Test
+	public void recordKeepsTheLastTenResults() throws IOException {
+		TestHistory history = load();
+		for (int i = 0; i < 12; i++) {
+			history.record(KEY, -1, 100, i < 2);
+		}
+		Assert.assertEquals(history.get(KEY).getRuns(), 12);
+		Assert.assertEquals(history.getFailureRate(KEY), 0.0);
+	}
+
+	@Test
+	public void saveAndLoadRoundTrip() throws IOException {
+		TestHistory history = load();
+		history.record(KEY, 2, 400, true);
+		Path copy = dir.resolve("copy.tsv");
+		history.save(copy);
+		TestHistory loaded = TestHistory.load(copy);
+		Assert.assertEquals(loaded.get(KEY).getRuns(), 1);
+		Assert.assertEquals(loaded.getFailureRate(KEY), 1.0);
+		Assert.assertEquals(loaded.getRowMillis(KEY).get(2), 400.0);
+	}
+
+	@Test
+	public void mergeCountsTheRunsOfEveryShard() throws IOException {
+		TestHistory base = load(KEY + "\t100.0\t2\tPP");
+		TestHistory shard1 = base.copy();
+		TestHistory shard2 = base.copy();
+		shard1.record(KEY, 0, 300, true);
+		shard2.record(KEY, 1, 500, false);
+		shard2.record(KEY, 2, 500, true);
+
+		TestHistory merged = base.copy();
+		merged.merge(shard1, base);
+		merged.merge(shard2, base);
+
+		TestHistory.Entry entry = merged.get(KEY);
+		Assert.assertEquals(entry.getRuns(), 5);
+		Assert.assertEquals(entry.getFailureRate(), 2 / 5.0);
+		Assert.assertNotNull(merged.get(KEY + "[0]"));
+		Assert.assertNotNull(merged.get(KEY + "[1]"));
+		Assert.assertNotNull(merged.get(KEY + "[2]"));
+	}
+
+	@Test
+	public void mergeIgnoresEntriesTheShardDidNotRun() throws IOException {
+		TestHistory base = load(KEY + "\t100.0\t2\tPF");
+		TestHistory merged = base.copy();
+		merged.merge(base.copy(), base);
+		Assert.assertEquals(merged.get(KEY).getRuns(), 2);
+		Assert.assertEquals(merged.getFailureRate(KEY), 0.5);
+	}
+
+}